@@ -0,0 +1,164 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.Builder;
+import hudson.util.FormValidation;
+import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.io.IOException;
+
+/**
+ * Builder running a remote operation on its target server or on every server of the target's group, with the
+ * console output optionally limited to head and tail. Holds the options both remote execution builders share.
+ */
+public abstract class AbstractGroupTargetBuilder extends Builder {
+    private boolean groupTarget;
+    private String hostFilter;
+    private int parallelism = GroupExecution.DEFAULT_PARALLELISM;
+    private String failureThreshold;
+    private String batchSize;
+    private boolean limitOutput;
+    private int outputHeadKb = OutputCapture.DEFAULT_HEAD_KB;
+    private int outputTailKb = OutputCapture.DEFAULT_TAIL_KB;
+
+    public abstract String getGroupName();
+
+    public abstract String getIp();
+
+    /**
+     * Runs {@code operation} on the target server, or on the selected servers of its group, and tells whether
+     * it succeeded.
+     */
+    protected boolean run(AbstractBuild<?, ?> build, BuildListener listener, LoggerDecorator logger,
+                          GroupExecution.HostOperation operation) throws IOException, InterruptedException {
+        if (isGroupTarget()) {
+            GroupExecution execution = new GroupExecution(
+                    GroupExecution.selectServers(getGroupName(), getHostFilter()), getParallelism());
+            execution.setFailureThreshold(getFailureThreshold());
+            execution.setBatchSize(getBatchSize());
+            if (isLimitOutput()) {
+                execution.setOutputCapture(build, listener, getOutputHeadKb(), getOutputTailKb());
+            }
+            boolean success = execution.execute(logger, operation);
+            logger.delimiter();
+            return success;
+        }
+        // This is where you 'build' the project.
+        SshClient sshHandler = GsshBuilderWrapper.DESCRIPTOR.getSshClient(getGroupName(), getIp());
+        int exitStatus;
+        if (isLimitOutput()) {
+            try (OutputCapture capture = OutputCapture.open(build, listener, getIp(), logger, getOutputHeadKb(),
+                    getOutputTailKb())) {
+                exitStatus = operation.execute(sshHandler, logger.withOutput(capture));
+            }
+        } else {
+            exitStatus = operation.execute(sshHandler, logger);
+        }
+        logger.delimiter();
+        return exitStatus == SshClient.STATUS_SUCCESS;
+    }
+
+    public boolean isGroupTarget() {
+        return groupTarget;
+    }
+
+    /**
+     * Runs the step on every server of the target server's group instead of the target server only.
+     */
+    @DataBoundSetter
+    public void setGroupTarget(boolean groupTarget) {
+        this.groupTarget = groupTarget;
+    }
+
+    public String getHostFilter() {
+        return hostFilter;
+    }
+
+    @DataBoundSetter
+    public void setHostFilter(String hostFilter) {
+        this.hostFilter = hostFilter;
+    }
+
+    public int getParallelism() {
+        return parallelism > 0 ? parallelism : GroupExecution.DEFAULT_PARALLELISM;
+    }
+
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public String getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    @DataBoundSetter
+    public void setFailureThreshold(String failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public String getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Rolls the step over the group in batches of this many servers, or this share of them.
+     */
+    @DataBoundSetter
+    public void setBatchSize(String batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public boolean isLimitOutput() {
+        return limitOutput;
+    }
+
+    /**
+     * Shows only the head and tail of the remote output in the console and archives the full output as a
+     * compressed build artifact.
+     */
+    @DataBoundSetter
+    public void setLimitOutput(boolean limitOutput) {
+        this.limitOutput = limitOutput;
+    }
+
+    public int getOutputHeadKb() {
+        return Math.max(0, outputHeadKb);
+    }
+
+    @DataBoundSetter
+    public void setOutputHeadKb(int outputHeadKb) {
+        this.outputHeadKb = outputHeadKb;
+    }
+
+    public int getOutputTailKb() {
+        return Math.max(0, outputTailKb);
+    }
+
+    @DataBoundSetter
+    public void setOutputTailKb(int outputTailKb) {
+        this.outputTailKb = outputTailKb;
+    }
+
+    /**
+     * Validates the group options of the form.
+     */
+    public abstract static class GroupTargetDescriptor extends BuildStepDescriptor<Builder> {
+
+        public FormValidation doCheckHostFilter(@QueryParameter String value) {
+            return GroupExecution.checkHostFilter(value);
+        }
+
+        public FormValidation doCheckFailureThreshold(@QueryParameter String value) {
+            return GroupExecution.checkHostCount(value);
+        }
+
+        public FormValidation doCheckBatchSize(@QueryParameter String value) {
+            return GroupExecution.checkHostCount(value);
+        }
+    }
+}
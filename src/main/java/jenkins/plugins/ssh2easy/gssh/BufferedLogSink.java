@@ -0,0 +1,141 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import jenkins.plugins.ssh2easy.gssh.client.SshExecutors;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects remote output in front of the build log and hands it over in large writes. The buffer is written
+ * once it is full, or at the latest {@link #DEFAULT_FLUSH_LATENCY} ms after the first byte went into it.
+ * {@link #flush()} only makes sure that timer is running, so output pumps flushing after every burst no longer
+ * cost a synchronous write each; {@link #close()} writes everything out.
+ * <p>
+ * Buffer size and latency are set with system properties prefixed by this class name.
+ */
+public class BufferedLogSink extends OutputStream {
+    private static final Logger LOG = Logger.getLogger(BufferedLogSink.class.getName());
+
+    public static final int DEFAULT_BUFFER_SIZE =
+            Integer.getInteger(BufferedLogSink.class.getName() + ".bufferSize", 64 * 1024);
+    public static final long DEFAULT_FLUSH_LATENCY =
+            Long.getLong(BufferedLogSink.class.getName() + ".flushLatency", 200);
+
+    private final OutputStream target;
+    private final long flushLatency;
+    private final byte[] buffer;
+    private int count;
+    private long bytesLogged;
+    private long flushCount;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public BufferedLogSink(OutputStream target) {
+        this(target, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_LATENCY);
+    }
+
+    public BufferedLogSink(OutputStream target, int bufferSize, long flushLatency) {
+        this.target = target;
+        this.buffer = new byte[Math.max(1024, bufferSize)];
+        this.flushLatency = Math.max(0, flushLatency);
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+        bytesLogged++;
+        scheduleFlush();
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.length - count) {
+            flushBuffer();
+        }
+        if (len >= buffer.length) {
+            // Larger than the buffer, copying would only add a second pass
+            target.write(b, off, len);
+            target.flush();
+            flushCount++;
+        } else {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+            scheduleFlush();
+        }
+        bytesLogged += len;
+    }
+
+    /**
+     * Makes sure buffered output reaches the log within the flush latency, without writing it right away.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (closed || flushLatency == 0) {
+            flushBuffer();
+        } else {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Writes all buffered output to the log and flushes it.
+     */
+    public synchronized void sync() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        flushBuffer();
+    }
+
+    public synchronized long getBytesLogged() {
+        return bytesLogged;
+    }
+
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    private void scheduleFlush() throws IOException {
+        if (count == 0 || scheduledFlush != null) {
+            return;
+        }
+        if (closed || flushLatency == 0) {
+            flushBuffer();
+            return;
+        }
+        scheduledFlush = SshExecutors.logFlusher().schedule(this::timedFlush, flushLatency, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void timedFlush() {
+        scheduledFlush = null;
+        try {
+            flushBuffer();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Failed to flush build log", e);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (count == 0) {
+            return;
+        }
+        target.write(buffer, 0, count);
+        target.flush();
+        count = 0;
+        flushCount++;
+    }
+}
@@ -0,0 +1,20 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+/**
+ * Whether SSH connections to the servers of a group use zlib transport compression.
+ */
+public enum CompressionMode {
+    OFF("Off"),
+    ON("On"),
+    AUTO("Automatic, measured per server");
+
+    private final String displayName;
+
+    CompressionMode(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,382 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.model.BuildListener;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshExecutors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Runs one remote operation on many servers of a group at the same time. Output of every host is written to the
+ * build log line by line as it arrives, each line prefixed with the ip of its host, followed by a summary with
+ * the exit status and wall-clock time of each host.
+ * <p>
+ * With a batch size the servers are processed as a rolling deployment: one batch at a time, and no further
+ * batch is started once more hosts failed than the failure threshold allows.
+ */
+public class GroupExecution {
+    public static final int DEFAULT_PARALLELISM = 10;
+
+    /**
+     * Remote operation run against a single host.
+     */
+    public interface HostOperation {
+        int execute(SshClient client, LoggerDecorator logger);
+    }
+
+    private final List<Server> servers;
+    private final int parallelism;
+    private String failureThreshold;
+    private String batchSize;
+    private Run<?, ?> captureBuild;
+    private BuildListener captureListener;
+    private int captureHeadKb;
+    private int captureTailKb;
+
+    public GroupExecution(List<Server> servers, int parallelism) {
+        this.servers = servers;
+        this.parallelism = parallelism > 0 ? parallelism : DEFAULT_PARALLELISM;
+    }
+
+    /**
+     * Selects the servers of a group whose name or ip matches {@code hostFilter}, or all of them when no
+     * filter is given.
+     */
+    public static List<Server> selectServers(String groupName, String hostFilter) {
+        Pattern filter = hostFilter == null || hostFilter.trim().isEmpty() ? null : Pattern.compile(hostFilter.trim());
+        List<Server> selected = new ArrayList<>();
+        for (Server server : GsshBuilderWrapper.DESCRIPTOR.getServers()) {
+            if (!groupName.trim().equals(server.getServerGroupName().trim())) {
+                continue;
+            }
+            if (filter == null || filter.matcher(server.getName()).find() || filter.matcher(server.getIp()).find()) {
+                selected.add(server);
+            }
+        }
+        return selected;
+    }
+
+    public static FormValidation checkHostFilter(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return FormValidation.ok();
+        }
+        try {
+            Pattern.compile(value.trim());
+            return FormValidation.ok();
+        } catch (PatternSyntaxException e) {
+            return FormValidation.error("Invalid regular expression: " + e.getDescription());
+        }
+    }
+
+    public static FormValidation checkHostCount(String value) {
+        if (HostCountSpec.isValid(value)) {
+            return FormValidation.ok();
+        }
+        return FormValidation.error("Please input a number of servers like 2 or a percentage like 25%");
+    }
+
+    public List<Server> getServers() {
+        return Collections.unmodifiableList(servers);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public String getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Number or percentage of hosts that may fail without failing the step, {@code 0} by default.
+     */
+    public void setFailureThreshold(String failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public int getAllowedFailures() {
+        return HostCountSpec.resolve(failureThreshold, servers.size(), 0);
+    }
+
+    public String getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Number or percentage of hosts per rolling batch. All hosts form a single batch when not set.
+     */
+    public void setBatchSize(String batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Limits the console output of every host to its head and tail, archiving the full output as build artifacts.
+     */
+    public void setOutputCapture(Run<?, ?> build, BuildListener listener, int headKb, int tailKb) {
+        this.captureBuild = build;
+        this.captureListener = listener;
+        this.captureHeadKb = headKb;
+        this.captureTailKb = tailKb;
+    }
+
+    public int getHostsPerBatch() {
+        return Math.max(1, HostCountSpec.resolve(batchSize, servers.size(), servers.size()));
+    }
+
+    /**
+     * Runs the operation on all servers and reports whether the failures stayed within the threshold.
+     */
+    public boolean execute(LoggerDecorator logger, HostOperation operation) throws InterruptedException {
+        if (servers.isEmpty()) {
+            // A filter matching nothing must not pass for a successful deployment
+            logger.log("ERROR: No server of the group matches the host filter, nothing was run");
+            return false;
+        }
+        int hostsPerBatch = getHostsPerBatch();
+        if (hostsPerBatch >= servers.size()) {
+            logger.log("Running on %d servers with parallelism %d", servers.size(), parallelism);
+            return summarize(logger, run(logger, servers, operation), Collections.emptyList());
+        }
+        int batches = (servers.size() + hostsPerBatch - 1) / hostsPerBatch;
+        logger.log("Running on %d servers in %d batches of %d with parallelism %d",
+                servers.size(), batches, hostsPerBatch, parallelism);
+        List<HostResult> results = new ArrayList<>();
+        int failures = 0;
+        for (int from = 0, batch = 1; from < servers.size(); from += hostsPerBatch, batch++) {
+            List<Server> hosts = servers.subList(from, Math.min(from + hostsPerBatch, servers.size()));
+            logger.log("Starting batch %d of %d with %d servers", batch, batches, hosts.size());
+            List<HostResult> batchResults = run(logger, hosts, operation);
+            results.addAll(batchResults);
+            failures += (int) batchResults.stream().filter(result -> !result.isSuccess()).count();
+            if (failures > getAllowedFailures() && from + hostsPerBatch < servers.size()) {
+                logger.log("Stopping after batch %d of %d: %d failed servers exceed the threshold of %d",
+                        batch, batches, failures, getAllowedFailures());
+                return summarize(logger, results, servers.subList(from + hostsPerBatch, servers.size()));
+            }
+        }
+        return summarize(logger, results, Collections.emptyList());
+    }
+
+    protected List<HostResult> run(LoggerDecorator logger, List<Server> hosts, HostOperation operation)
+            throws InterruptedException {
+        Semaphore permits = new Semaphore(parallelism);
+        List<Future<HostResult>> futures = new ArrayList<>();
+        try {
+            for (Server server : hosts) {
+                permits.acquire();
+                futures.add(SshExecutors.workers().submit(() -> {
+                    try {
+                        return runOnHost(logger, server, operation);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<HostResult> results = new ArrayList<>();
+            for (Future<HostResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new GsshPluginException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            for (Future<HostResult> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private HostResult runOnHost(LoggerDecorator logger, Server server, HostOperation operation)
+            throws IOException {
+        PrintStream out = new PrintStream(new HostOutputStream(logger, server.getIp()), true,
+                StandardCharsets.UTF_8.name());
+        LoggerDecorator hostLogger = new LoggerDecorator(out);
+        long start = System.nanoTime();
+        int status = SshClient.STATUS_FAILED;
+        String error = null;
+        Exception failure = null;
+        OutputCapture capture = null;
+        try {
+            SshClient client = GsshBuilderWrapper.DESCRIPTOR.getSshClient(server.getServerGroupName(), server.getIp());
+            if (captureBuild != null) {
+                // Limits the console output of the host to head and tail
+                capture = OutputCapture.open(captureBuild, captureListener, server.getIp(), hostLogger,
+                        captureHeadKb, captureTailKb);
+                status = operation.execute(client, hostLogger.withOutput(capture));
+            } else {
+                status = operation.execute(client, hostLogger);
+            }
+        } catch (Exception e) {
+            failure = e;
+        }
+        if (capture != null) {
+            try {
+                capture.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            status = SshClient.STATUS_FAILED;
+            error = failure.getMessage() == null ? failure.toString() : failure.getMessage();
+            hostLogger.log(failure, "Failed to run on %s", server.getServerInfo());
+        }
+        HostResult result = new HostResult(server, status, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                error);
+        out.close();
+        synchronized (logger) {
+            logger.log(result.toString());
+        }
+        return result;
+    }
+
+    protected boolean summarize(LoggerDecorator logger, List<HostResult> results, List<Server> skipped) {
+        List<HostResult> failures = results.stream().filter(result -> !result.isSuccess()).collect(Collectors.toList());
+        logger.delimiter();
+        logger.log("Summary: %d succeeded, %d failed, %d skipped, %d allowed to fail",
+                results.size() - failures.size(), failures.size(), skipped.size(), getAllowedFailures());
+        for (HostResult result : results) {
+            logger.log(result.toString());
+        }
+        for (Server server : skipped) {
+            logger.log("%-40s skipped", server.getServerInfo());
+        }
+        return skipped.isEmpty() && failures.size() <= getAllowedFailures();
+    }
+
+    /**
+     * Writes the output of one host to the shared build log in complete lines, each prefixed with the host, so
+     * that hosts running at the same time only interleave by line. Only the current line is held in memory,
+     * lines longer than {@link #MAX_LINE} bytes are broken up.
+     */
+    static final class HostOutputStream extends OutputStream {
+        static final int MAX_LINE = 8 * 1024;
+
+        private final LoggerDecorator logger;
+        private final byte[] prefix;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        HostOutputStream(LoggerDecorator logger, String host) {
+            this.logger = logger;
+            this.prefix = ("[" + host + "] ").getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            line.write(b);
+            if (b == '\n' || line.size() >= MAX_LINE) {
+                writeLine();
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            int end = off + len;
+            int from = off;
+            for (int i = off; i < end; i++) {
+                if (b[i] == '\n' || line.size() + i - from + 1 >= MAX_LINE) {
+                    line.write(b, from, i - from + 1);
+                    writeLine();
+                    from = i + 1;
+                }
+            }
+            line.write(b, from, end - from);
+        }
+
+        /**
+         * Writes out the last line, even without a line break.
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            if (line.size() > 0) {
+                line.write('\n');
+                writeLine();
+            }
+        }
+
+        private void writeLine() throws IOException {
+            if (line.size() == 0) {
+                return;
+            }
+            byte[] prefixed = new byte[prefix.length + line.size()];
+            System.arraycopy(prefix, 0, prefixed, 0, prefix.length);
+            System.arraycopy(line.toByteArray(), 0, prefixed, prefix.length, line.size());
+            line.reset();
+            if (prefixed[prefixed.length - 1] != '\n') {
+                prefixed = Arrays.copyOf(prefixed, prefixed.length + 1);
+                prefixed[prefixed.length - 1] = '\n';
+            }
+            synchronized (logger) {
+                OutputStream target = logger.outputStream();
+                target.write(prefixed);
+                target.flush();
+            }
+        }
+    }
+
+    /**
+     * Outcome of the operation on one host.
+     */
+    public static class HostResult {
+        private final Server server;
+        private final int exitStatus;
+        private final long millis;
+        private final String error;
+
+        public HostResult(Server server, int exitStatus, long millis, String error) {
+            this.server = server;
+            this.exitStatus = exitStatus;
+            this.millis = millis;
+            this.error = error;
+        }
+
+        public Server getServer() {
+            return server;
+        }
+
+        public int getExitStatus() {
+            return exitStatus;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return exitStatus == SshClient.STATUS_SUCCESS;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s exit=%d time=%.3fs%s", server.getServerInfo(), exitStatus, millis / 1000.0,
+                    error == null ? "" : " error=" + error);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package jenkins.plugins.ssh2easy.gssh;
 
+import com.jcraft.jsch.Session;
+import com.trilead.ssh2.Connection;
 import hudson.Extension;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
@@ -10,7 +12,15 @@ import hudson.tasks.BuildWrapper;
 import hudson.tasks.BuildWrapperDescriptor;
 import hudson.util.CopyOnWriteList;
 import hudson.util.FormValidation;
+import jenkins.plugins.ssh2easy.gssh.client.CompressionAdvisor;
+import jenkins.plugins.ssh2easy.gssh.client.ConnectionMetrics;
+import jenkins.plugins.ssh2easy.gssh.client.DefaultSshClient;
+import jenkins.plugins.ssh2easy.gssh.client.JenkinsSshClient;
+import jenkins.plugins.ssh2easy.gssh.client.MeteredExecutor;
 import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshExecutors;
+import jenkins.plugins.ssh2easy.gssh.client.SshSessionPool;
+import jenkins.plugins.ssh2easy.gssh.client.SshTransport;
 import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -23,8 +33,11 @@ import javax.annotation.Nullable;
 import javax.servlet.ServletException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -39,6 +52,8 @@ public final class GsshBuilderWrapper extends BuildWrapper {
     private String postScript;
     private String groupName;
     private String ip;
+    private boolean streamScript;
+    private String interpreter;
 
     public GsshBuilderWrapper() {
     }
@@ -64,11 +79,23 @@ public final class GsshBuilderWrapper extends BuildWrapper {
         Environment env = new Environment() {
             @Override
             public boolean tearDown(AbstractBuild build, BuildListener listener) throws IOException, InterruptedException {
-                executePostBuildScript(new LoggerDecorator(listener.getLogger()));
+                LoggerDecorator logger = LoggerDecorator.buffered(listener.getLogger());
+                try {
+                    executePostBuildScript(logger);
+                } finally {
+                    logger.close();
+                    GsshLogMetricsAction.record(build, logger);
+                }
                 return super.tearDown(build, listener);
             }
         };
-        executePreBuildScript(new LoggerDecorator(listener.getLogger()));
+        LoggerDecorator logger = LoggerDecorator.buffered(listener.getLogger());
+        try {
+            executePreBuildScript(logger);
+        } finally {
+            logger.close();
+            GsshLogMetricsAction.record(build, logger);
+        }
         return env;
     }
 
@@ -84,7 +111,7 @@ public final class GsshBuilderWrapper extends BuildWrapper {
         SshClient sshHandler = getSshClient();
         int exitStatus = SshClient.STATUS_FAILED;
         if (preScript != null && !preScript.trim().equals("")) {
-            exitStatus = sshHandler.executeShellByFTP(logger, preScript);
+            exitStatus = execute(sshHandler, logger, preScript);
         }
         logger.delimiter();
         return exitStatus == SshClient.STATUS_SUCCESS;
@@ -102,12 +129,17 @@ public final class GsshBuilderWrapper extends BuildWrapper {
         SshClient sshHandler = getSshClient();
         int exitStatus = SshClient.STATUS_FAILED;
         if (postScript != null && !postScript.trim().equals("")) {
-            exitStatus = sshHandler.executeShellByFTP(logger, postScript);
+            exitStatus = execute(sshHandler, logger, postScript);
         }
         logger.delimiter();
         return exitStatus == SshClient.STATUS_SUCCESS;
     }
 
+    private int execute(SshClient sshHandler, LoggerDecorator logger, String script) {
+        return isStreamScript() ? sshHandler.executeScript(logger, getInterpreter(), script)
+                : sshHandler.executeShellByFTP(logger, script);
+    }
+
     public SshClient getSshClient() {
         return DESCRIPTOR.getSshClient(getGroupName(), getIp());
     }
@@ -148,6 +180,25 @@ public final class GsshBuilderWrapper extends BuildWrapper {
         this.postScript = postScript;
     }
 
+    public boolean isStreamScript() {
+        return streamScript;
+    }
+
+    /**
+     * Streams the scripts into the stdin of a remote interpreter instead of uploading them as files.
+     */
+    public void setStreamScript(boolean streamScript) {
+        this.streamScript = streamScript;
+    }
+
+    public String getInterpreter() {
+        return StringUtils.defaultIfBlank(interpreter, SshClient.DEFAULT_INTERPRETER);
+    }
+
+    public void setInterpreter(String interpreter) {
+        this.interpreter = StringUtils.trimToNull(interpreter);
+    }
+
     public String getServerInfo() {
         return serverInfo;
     }
@@ -171,6 +222,11 @@ public final class GsshBuilderWrapper extends BuildWrapper {
     public static class GsshDescriptorImpl extends BuildWrapperDescriptor {
         private final CopyOnWriteList<ServerGroup> serverGroups = new CopyOnWriteList<>();
         private final CopyOnWriteList<Server> servers = new CopyOnWriteList<>();
+        private final transient SshSessionPool<Session> sessionPool =
+                new SshSessionPool<>(DefaultSshClient.SESSION_HANDLER);
+        private final transient SshSessionPool<Connection> connectionPool =
+                new SshSessionPool<>(JenkinsSshClient.CONNECTION_HANDLER);
+        private final transient CompressionAdvisor compressionAdvisor = new CompressionAdvisor();
 
         public GsshDescriptorImpl() {
             super(GsshBuilderWrapper.class);
@@ -190,6 +246,52 @@ public final class GsshBuilderWrapper extends BuildWrapper {
             return servers.toArray(new Server[0]);
         }
 
+        public CompressionMode[] getCompressionModes() {
+            return CompressionMode.values();
+        }
+
+        public List<SshTransport> getTransports() {
+            return SshTransport.all();
+        }
+
+        public SshSessionPool<Session> getSessionPool() {
+            return sessionPool;
+        }
+
+        public SshSessionPool<Connection> getConnectionPool() {
+            return connectionPool;
+        }
+
+        public ConnectionMetrics getConnectionMetrics() {
+            return ConnectionMetrics.get();
+        }
+
+        public List<MeteredExecutor> getThreadPools() {
+            return SshExecutors.all();
+        }
+
+        public CompressionAdvisor getCompressionAdvisor() {
+            return compressionAdvisor;
+        }
+
+        /**
+         * Closes pooled connections which stayed unused for longer than the pool idle timeout.
+         */
+        public void evictIdleSessions() {
+            sessionPool.evictIdle();
+            connectionPool.evictIdle();
+            SshTransport.all().forEach(SshTransport::evictIdle);
+        }
+
+        /**
+         * Drops every pooled connection, so that changed group credentials apply to the next operation.
+         */
+        public void clearSessions() {
+            sessionPool.clear();
+            connectionPool.clear();
+            SshTransport.all().forEach(SshTransport::clear);
+        }
+
         @Nonnull
         @Override
         public String getDisplayName() {
@@ -210,18 +312,41 @@ public final class GsshBuilderWrapper extends BuildWrapper {
 
         @Override
         public boolean configure(StaplerRequest req, JSONObject formData) {
-            serverGroups.replaceBy(req.bindParametersToList(ServerGroup.class, "gssh.sg.wrapper."));
+            serverGroups.replaceBy(bindServerGroups(req));
             servers.replaceBy(req.bindParametersToList(Server.class, "gssh.s.wrapper."));
             save();
+            clearSessions();
             return true;
         }
 
         public boolean doServerGroupSubmit(StaplerRequest req, StaplerResponse rsp) {
-            serverGroups.replaceBy(req.bindParametersToList(ServerGroup.class, "gssh.sg.wrapper."));
+            serverGroups.replaceBy(bindServerGroups(req));
             save();
+            clearSessions();
             return true;
         }
 
+        /**
+         * Binds the server groups of the form. The constructor only takes the login, the connection settings are
+         * applied through their {@code @DataBoundSetter}s, so every group is bound from its own JSON object.
+         */
+        private static List<ServerGroup> bindServerGroups(StaplerRequest req) {
+            String prefix = "gssh.sg.wrapper.";
+            List<ServerGroup> groups = new ArrayList<>();
+            String[] names = req.getParameterValues(prefix + "groupName");
+            for (int i = 0; names != null && i < names.length; i++) {
+                JSONObject group = new JSONObject();
+                for (String parameter : Collections.list(req.getParameterNames())) {
+                    String[] values = req.getParameterValues(parameter);
+                    if (parameter.startsWith(prefix) && i < values.length) {
+                        group.put(parameter.substring(prefix.length()), values[i]);
+                    }
+                }
+                groups.add(req.bindJSON(ServerGroup.class, group));
+            }
+            return groups;
+        }
+
         public boolean doServerSubmit(StaplerRequest req, StaplerResponse rsp) {
             servers.replaceBy(req.bindParametersToList(Server.class, "gssh.s.wrapper."));
             save();
@@ -8,10 +8,8 @@ import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.model.Descriptor;
-import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.ListBoxModel;
-import jenkins.plugins.ssh2easy.gssh.client.SshClient;
 import net.sf.json.JSONObject;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.StaplerRequest;
@@ -27,7 +25,7 @@ import java.util.logging.Logger;
  *
  * @author Jerry Cai
  */
-public class GsshCommandBuilder extends Builder {
+public class GsshCommandBuilder extends AbstractGroupTargetBuilder {
     private boolean disable;
     private String serverInfo;
     private String groupName;
@@ -49,24 +47,29 @@ public class GsshCommandBuilder extends Builder {
     @Override
     public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener)
             throws IOException, InterruptedException {
-        LoggerDecorator logger = new LoggerDecorator(listener.getLogger());
+        LoggerDecorator logger = LoggerDecorator.buffered(listener.getLogger());
+        try {
+            return perform(build, listener, logger);
+        } finally {
+            logger.close();
+            GsshLogMetricsAction.record(build, logger);
+        }
+    }
+
+    private boolean perform(AbstractBuild<?, ?> build, BuildListener listener, LoggerDecorator logger)
+            throws IOException, InterruptedException {
         logger.delimiter();
         if (isDisable()) {
             logger.log("Current step is disabled, skipping execution");
             return true;
         }
         logger.log("Running on server -- " + getServerInfo());
-        // This is where you 'build' the project.
-        SshClient sshHandler = GsshBuilderWrapper.DESCRIPTOR.getSshClient(getGroupName(), getIp());
-
         EnvVars env = build.getEnvironment(listener);
         String shell = Util.fixEmptyAndTrim(Util.replaceMacro(getShell(), env));
         if (shell == null) {
             return false;
         }
-        int exitStatus = sshHandler.executeCommand(logger, shell);
-        logger.delimiter();
-        return exitStatus == SshClient.STATUS_SUCCESS;
+        return run(build, listener, logger, (client, hostLogger) -> client.executeCommand(hostLogger, shell));
     }
 
     // Overridden for better type safety.
@@ -118,7 +121,7 @@ public class GsshCommandBuilder extends Builder {
     }
 
     @Extension
-    public static class DescriptorImpl extends BuildStepDescriptor<Builder> {
+    public static class DescriptorImpl extends GroupTargetDescriptor {
         @Override
         public boolean isApplicable(Class<? extends AbstractProject> jobType) {
             return true;
@@ -0,0 +1,72 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.Extension;
+import hudson.model.TaskListener;
+import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshResult;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipeline counterpart of {@link GsshCommandBuilder}: {@code gsshCommand serverInfo: ..., command: ...}. The
+ * command runs on the single server of the server info.
+ */
+public class GsshCommandStep extends GsshStep {
+    private final String command;
+
+    @DataBoundConstructor
+    public GsshCommandStep(String serverInfo, String command) {
+        super(serverInfo);
+        this.command = command;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    private static final class Execution extends GsshStepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final transient GsshCommandStep step;
+
+        Execution(GsshCommandStep step, StepContext context) {
+            super(step, context);
+            this.step = step;
+        }
+
+        @Override
+        protected CompletableFuture<SshResult> start(SshClient client, LoggerDecorator logger) {
+            return client.executeCommandAsync(logger, step.getCommand());
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends GsshStepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "gsshCommand";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return Messages.SSHCOMMAND_DisplayName();
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.singleton(TaskListener.class);
+        }
+    }
+}
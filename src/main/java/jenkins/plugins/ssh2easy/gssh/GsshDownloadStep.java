@@ -0,0 +1,139 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.ListBoxModel;
+import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshResult;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipeline counterpart of {@link GsshFtpDownloadBuilder}: downloads into a folder of the workspace with
+ * {@code gsshDownload serverInfo: ..., remoteFile: ..., localFolder: ...}.
+ */
+public class GsshDownloadStep extends GsshStep {
+    private final String remoteFile;
+    private final String localFolder;
+    private String fileName;
+    private TransferMode transferMode;
+    private int parallelRanges;
+    private int retries;
+
+    @DataBoundConstructor
+    public GsshDownloadStep(String serverInfo, String remoteFile, String localFolder) {
+        super(serverInfo);
+        this.remoteFile = remoteFile;
+        this.localFolder = localFolder;
+    }
+
+    public String getRemoteFile() {
+        return remoteFile;
+    }
+
+    public String getLocalFolder() {
+        return localFolder;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    @DataBoundSetter
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public TransferMode getTransferMode() {
+        return transferMode == null ? TransferMode.SFTP : transferMode;
+    }
+
+    @DataBoundSetter
+    public void setTransferMode(TransferMode transferMode) {
+        this.transferMode = TransferMode.checkDownload(transferMode);
+    }
+
+    public int getParallelRanges() {
+        return Math.max(1, parallelRanges);
+    }
+
+    @DataBoundSetter
+    public void setParallelRanges(int parallelRanges) {
+        this.parallelRanges = parallelRanges;
+    }
+
+    public int getRetries() {
+        return Math.max(0, retries);
+    }
+
+    @DataBoundSetter
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    private static final class Execution extends GsshStepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final transient GsshDownloadStep step;
+
+        Execution(GsshDownloadStep step, StepContext context) {
+            super(step, context);
+            this.step = step;
+        }
+
+        @Override
+        protected CompletableFuture<SshResult> start(SshClient client, LoggerDecorator logger) throws Exception {
+            TaskListener listener = getContext().get(TaskListener.class);
+            FilePath folder = getContext().get(FilePath.class).child(step.getLocalFolder());
+            boolean tar = step.getTransferMode().isTar();
+            // In tar mode the remote file names a directory whose whole content goes into the local folder
+            FilePath target = tar ? folder : folder.child(Optional.ofNullable(step.getFileName())
+                    .orElse(new File(step.getRemoteFile()).getName()));
+            logger.log("Going to load into: %s", target.getRemote());
+            GsshFtpDownloadBuilder.Transfer transfer = new GsshFtpDownloadBuilder.Transfer(
+                    GsshBuilderWrapper.DESCRIPTOR.getServerGroup(step.getGroupName()), step.getIp(), listener,
+                    step.getRemoteFile(), step.getTransferMode(), step.getParallelRanges(), step.getRetries());
+            return SshResult.onWorker(() -> transfer.run(client, logger, target),
+                    () -> tar ? 0L : target.length());
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends GsshStepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "gsshDownload";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return Messages.SSHFTPDOWNLOAD_DisplayName();
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return new HashSet<>(Arrays.asList(TaskListener.class, FilePath.class));
+        }
+
+        public ListBoxModel doFillTransferModeItems() {
+            return TransferMode.fillDownloadItems();
+        }
+    }
+}
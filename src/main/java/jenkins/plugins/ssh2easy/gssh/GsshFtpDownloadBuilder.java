@@ -5,21 +5,27 @@ import hudson.model.BuildListener;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Descriptor;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.ListBoxModel;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.FileSystem;
 import java.util.Optional;
 import java.util.logging.Logger;
 
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.plugins.ssh2easy.gssh.client.AgentSshClients;
 import jenkins.plugins.ssh2easy.gssh.client.SshClient;
 import net.sf.json.JSONObject;
 
 import org.apache.tools.ant.util.FileUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest;
 
 import javax.annotation.Nonnull;
@@ -37,6 +43,10 @@ public class GsshFtpDownloadBuilder extends Builder {
 	private String remoteFile;
 	private String localFolder;
 	private String fileName;
+	private int parallelRanges = 1;
+	private TransferMode transferMode;
+	private int retries;
+	private boolean runOnAgent;
 
 	public GsshFtpDownloadBuilder() {
 	}
@@ -63,7 +73,6 @@ public class GsshFtpDownloadBuilder extends Builder {
 		}
 		logger.log("Running on server -- " + getServerInfo());
 		// This is where you 'build' the project.
-		SshClient sshClient = GsshBuilderWrapper.DESCRIPTOR.getSshClient(getGroupName(), getIp());
 		try {
 			EnvVars env = build.getEnvironment(listener);
 			String filePath = Util.replaceMacro(getLocalFolder(), env);
@@ -79,16 +88,31 @@ public class GsshFtpDownloadBuilder extends Builder {
 			if (buildWorkspace == null) {
 				return false;
 			}
-			String fileName = Optional.ofNullable(this.fileName).orElse(new File(remoteFile).getName());
-			FilePath localFilePath;
-			if (buildWorkspace.isRemote()) {
-				String fp = String.format("%s/%s/%s", buildWorkspace.getRemote(), localFolder, fileName);
-				localFilePath = new FilePath(buildWorkspace.getChannel(), fp);
+			FilePath target;
+			if (getTransferMode().isTar()) {
+				// The remote file names a directory whose whole content goes into the local folder
+				target = buildWorkspace.child(filePath);
+				logger.log("Going to unpack directory into: %s", target.getRemote());
 			} else {
-				localFilePath = new FilePath(new File(new File(buildWorkspace.toURI()), filePath));
+				String fileName = Optional.ofNullable(this.fileName).orElse(new File(remoteFile).getName());
+				if (buildWorkspace.isRemote()) {
+					String fp = String.format("%s/%s/%s", buildWorkspace.getRemote(), localFolder, fileName);
+					target = new FilePath(buildWorkspace.getChannel(), fp);
+				} else {
+					target = new FilePath(new File(new File(buildWorkspace.toURI()), filePath));
+				}
+				logger.log("Going to load file into: %s", target.toURI());
+			}
+			Transfer transfer = new Transfer(GsshBuilderWrapper.DESCRIPTOR.getServerGroup(getGroupName()), getIp(),
+					listener, remoteFile, getTransferMode(), getParallelRanges(), getRetries());
+			int exitStatus;
+			if (isRunOnAgent()) {
+				logger.log("Downloading on the agent of the workspace %s", buildWorkspace.getRemote());
+				exitStatus = target.act(transfer);
+			} else {
+				SshClient sshClient = GsshBuilderWrapper.DESCRIPTOR.getSshClient(getGroupName(), getIp());
+				exitStatus = transfer.run(sshClient, logger, target);
 			}
-			logger.log("Going to load file into: %s", localFilePath.toURI());
-			int exitStatus = sshClient.downloadFile(logger, remoteFile, localFilePath);
 			logger.delimiter();
 			return exitStatus == SshClient.STATUS_SUCCESS;
 		} catch (Exception e) {
@@ -152,6 +176,104 @@ public class GsshFtpDownloadBuilder extends Builder {
 		this.fileName = fileName;
 	}
 
+	public int getParallelRanges() {
+		return Math.max(1, parallelRanges);
+	}
+
+	/**
+	 * Splits large files into this many byte ranges which are downloaded at the same time.
+	 */
+	@DataBoundSetter
+	public void setParallelRanges(int parallelRanges) {
+		this.parallelRanges = parallelRanges;
+	}
+
+	public TransferMode getTransferMode() {
+		return transferMode == null ? TransferMode.SFTP : transferMode;
+	}
+
+	/**
+	 * How the remote file is fetched; the tar modes fetch a whole remote directory as one stream.
+	 */
+	@DataBoundSetter
+	public void setTransferMode(TransferMode transferMode) {
+		this.transferMode = TransferMode.checkDownload(transferMode);
+	}
+
+	public int getRetries() {
+		return Math.max(0, retries);
+	}
+
+	/**
+	 * Number of times a failed download is resumed, waiting twice as long before every retry.
+	 */
+	@DataBoundSetter
+	public void setRetries(int retries) {
+		this.retries = retries;
+	}
+
+	public boolean isRunOnAgent() {
+		return runOnAgent;
+	}
+
+	/**
+	 * Connects to the server from the agent holding the workspace, so the data does not pass the controller.
+	 */
+	@DataBoundSetter
+	public void setRunOnAgent(boolean runOnAgent) {
+		this.runOnAgent = runOnAgent;
+	}
+
+	/**
+	 * The download itself, run on the controller or shipped to the agent holding the target.
+	 */
+	static final class Transfer extends MasterToSlaveFileCallable<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		private final ServerGroup group;
+		private final String ip;
+		private final TaskListener listener;
+		private final String remoteFile;
+		private final TransferMode mode;
+		private final int ranges;
+		private final int retries;
+
+		Transfer(ServerGroup group, String ip, TaskListener listener, String remoteFile, TransferMode mode,
+				int ranges, int retries) {
+			this.group = group;
+			this.ip = ip;
+			this.listener = listener;
+			this.remoteFile = remoteFile;
+			this.mode = mode;
+			this.ranges = ranges;
+			this.retries = retries;
+		}
+
+		@Override
+		public Integer invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+			try {
+				return run(AgentSshClients.create(group, ip), new LoggerDecorator(listener.getLogger()),
+						new FilePath(f));
+			} catch (IOException | InterruptedException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+		}
+
+		int run(SshClient sshClient, LoggerDecorator logger, FilePath target) throws Exception {
+			if (mode.isTar()) {
+				return sshClient.downloadDirectoryAsTar(logger, remoteFile, target, mode.isCompressed());
+			}
+			// Ranged downloads preallocate the whole file, so they start over instead of resuming
+			return new TransferRetry(retries).run(logger,
+					() -> sshClient.downloadFile(logger, remoteFile, target, ranges),
+					() -> ranges > 1
+							? sshClient.downloadFile(logger, remoteFile, target, ranges)
+							: sshClient.resumeDownload(logger, remoteFile, target));
+		}
+	}
+
 	// Overridden for better type safety.
 	// If your plugin doesn't really define any property on Descriptor,
 	// you don't have to do this.
@@ -185,5 +307,9 @@ public class GsshFtpDownloadBuilder extends Builder {
 			}
 			return m;
 		}
+
+		public ListBoxModel doFillTransferModeItems() {
+			return TransferMode.fillDownloadItems();
+		}
 	}
 }
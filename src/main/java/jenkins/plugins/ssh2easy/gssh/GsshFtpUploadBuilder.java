@@ -5,16 +5,22 @@ import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.model.Descriptor;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.ListBoxModel;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.plugins.ssh2easy.gssh.client.AgentSshClients;
 import jenkins.plugins.ssh2easy.gssh.client.SshClient;
 import net.sf.json.JSONObject;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.logging.Logger;
 
@@ -24,6 +30,8 @@ import java.util.logging.Logger;
  * @author Jerry Cai
  */
 public class GsshFtpUploadBuilder extends Builder {
+    public static final int DEFAULT_UPLOAD_WORKERS = 4;
+
     private boolean disable;
     private String serverInfo;
     private String groupName;
@@ -31,6 +39,11 @@ public class GsshFtpUploadBuilder extends Builder {
     private String localFilePath;
     private String remoteLocation;
     private String fileName;
+    private int uploadWorkers = DEFAULT_UPLOAD_WORKERS;
+    private TransferMode transferMode;
+    private boolean deleteRemoved;
+    private int retries;
+    private boolean runOnAgent;
 
     public GsshFtpUploadBuilder() {
     }
@@ -62,7 +75,6 @@ public class GsshFtpUploadBuilder extends Builder {
         }
         logger.log("Running on server -- " + getServerInfo());
         // This is where you 'build' the project.
-        SshClient sshClient = GsshBuilderWrapper.DESCRIPTOR.getSshClient(getGroupName(), getIp());
         int exitStatus = SshClient.STATUS_FAILED;
         try {
             EnvVars env = build.getEnvironment(listener);
@@ -71,18 +83,19 @@ public class GsshFtpUploadBuilder extends Builder {
             String remoteLocation = Util.fixEmptyAndTrim(Util.replaceMacro(getRemoteLocation(), env));
 
             if (localFilePath != null && remoteLocation != null) {
-                FilePath path = new FilePath(new File(localFilePath));
-                if (path.exists() && path.isDirectory()) {
-                    for (FilePath innerPath : path.list()) {
-                        File file = new File(innerPath.getRemote());
-                        exitStatus = sshClient.uploadFile(logger, uploadFileName, file, remoteLocation);
-                    }
+                Transfer transfer = new Transfer(GsshBuilderWrapper.DESCRIPTOR.getServerGroup(getGroupName()),
+                        getIp(), listener, uploadFileName, remoteLocation, getTransferMode(), getUploadWorkers(),
+                        isDeleteRemoved(), getRetries());
+                FilePath workspace = build.getWorkspace();
+                // Relative paths point into the workspace, on whichever node holds it
+                FilePath path = workspace != null ? workspace.child(localFilePath)
+                        : new FilePath(new File(localFilePath));
+                if (isRunOnAgent() && path.isRemote()) {
+                    logger.log("Uploading from the agent of the workspace %s", workspace.getRemote());
+                    exitStatus = path.act(transfer);
                 } else {
-                    File file = new File(localFilePath);
-                    if (null == fileName) {
-                        fileName = file.getName();
-                    }
-                    exitStatus = sshClient.uploadFile(logger, uploadFileName, file, remoteLocation);
+                    SshClient sshClient = GsshBuilderWrapper.DESCRIPTOR.getSshClient(getGroupName(), getIp());
+                    exitStatus = transfer.run(sshClient, logger, path);
                 }
                 logger.delimiter();
             }
@@ -148,6 +161,131 @@ public class GsshFtpUploadBuilder extends Builder {
         this.fileName = fileName;
     }
 
+    public int getUploadWorkers() {
+        return uploadWorkers > 0 ? uploadWorkers : DEFAULT_UPLOAD_WORKERS;
+    }
+
+    /**
+     * Number of SFTP channels uploading files of a directory in parallel over one connection.
+     */
+    @DataBoundSetter
+    public void setUploadWorkers(int uploadWorkers) {
+        this.uploadWorkers = uploadWorkers;
+    }
+
+    public TransferMode getTransferMode() {
+        return transferMode == null ? TransferMode.SFTP : transferMode;
+    }
+
+    /**
+     * How a local directory is sent, file by file over SFTP or as one tar stream.
+     */
+    @DataBoundSetter
+    public void setTransferMode(TransferMode transferMode) {
+        this.transferMode = transferMode;
+    }
+
+    public boolean isDeleteRemoved() {
+        return deleteRemoved;
+    }
+
+    /**
+     * In sync mode, deletes remote files which do not exist in the local directory.
+     */
+    @DataBoundSetter
+    public void setDeleteRemoved(boolean deleteRemoved) {
+        this.deleteRemoved = deleteRemoved;
+    }
+
+    public int getRetries() {
+        return Math.max(0, retries);
+    }
+
+    /**
+     * Number of times a failed file upload is resumed, waiting twice as long before every retry.
+     */
+    @DataBoundSetter
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+
+    public boolean isRunOnAgent() {
+        return runOnAgent;
+    }
+
+    /**
+     * Connects to the server from the agent holding the workspace, so the data does not pass the controller.
+     */
+    @DataBoundSetter
+    public void setRunOnAgent(boolean runOnAgent) {
+        this.runOnAgent = runOnAgent;
+    }
+
+    /**
+     * The upload itself, run on the controller or shipped to the agent holding the local path.
+     */
+    static final class Transfer extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final ServerGroup group;
+        private final String ip;
+        private final TaskListener listener;
+        private final String fileName;
+        private final String remoteLocation;
+        private final TransferMode mode;
+        private final int workers;
+        private final boolean deleteRemoved;
+        private final int retries;
+
+        Transfer(ServerGroup group, String ip, TaskListener listener, String fileName, String remoteLocation,
+                 TransferMode mode, int workers, boolean deleteRemoved, int retries) {
+            this.group = group;
+            this.ip = ip;
+            this.listener = listener;
+            this.fileName = fileName;
+            this.remoteLocation = remoteLocation;
+            this.mode = mode;
+            this.workers = workers;
+            this.deleteRemoved = deleteRemoved;
+            this.retries = retries;
+        }
+
+        @Override
+        public Integer invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+            try {
+                return run(AgentSshClients.create(group, ip), new LoggerDecorator(listener.getLogger()),
+                        new FilePath(f));
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        int run(SshClient sshClient, LoggerDecorator logger, FilePath path) throws Exception {
+            boolean directory = path.exists() && path.isDirectory();
+            if (directory && mode == TransferMode.SYNC && path.isRemote()) {
+                // Comparing against the server needs the files at hand, so the sync runs on the agent holding them
+                logger.log("Directory %s is on an agent, syncing it from there", path.getRemote());
+                return path.act(this);
+            } else if (directory && (mode.isTar() || path.isRemote())) {
+                if (!mode.isTar()) {
+                    logger.log("Directory %s is on an agent, streaming it as tar", path.getRemote());
+                }
+                return sshClient.uploadDirectoryAsTar(logger, path, remoteLocation, mode.isCompressed());
+            } else if (directory && mode == TransferMode.SYNC) {
+                return sshClient.syncDirectory(logger, new File(path.getRemote()), remoteLocation, workers,
+                        deleteRemoved);
+            } else if (directory) {
+                return sshClient.uploadDirectory(logger, new File(path.getRemote()), remoteLocation, workers);
+            }
+            String name = fileName == null ? path.getName() : fileName;
+            return new TransferRetry(retries).run(logger,
+                    () -> sshClient.uploadFile(logger, name, path, remoteLocation),
+                    () -> sshClient.resumeUpload(logger, name, path, remoteLocation));
+        }
+    }
+
     // Overridden for better type safety.
     // If your plugin doesn't really define any property on Descriptor,
     // you don't have to do this.
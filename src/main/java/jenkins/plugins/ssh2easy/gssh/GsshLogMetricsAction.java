@@ -0,0 +1,46 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+
+/**
+ * Totals of the remote output the ssh2easy steps of a build wrote to its log, shown on the build page.
+ */
+public class GsshLogMetricsAction extends InvisibleAction {
+    private long bytesLogged;
+    private long flushCount;
+    private int steps;
+
+    /**
+     * Adds the output of one step to the totals of its build.
+     */
+    public static void record(Run<?, ?> build, LoggerDecorator logger) {
+        GsshLogMetricsAction action;
+        synchronized (build) {
+            action = build.getAction(GsshLogMetricsAction.class);
+            if (action == null) {
+                action = new GsshLogMetricsAction();
+                build.addAction(action);
+            }
+        }
+        action.add(logger.getBytesLogged(), logger.getFlushCount());
+    }
+
+    private synchronized void add(long bytes, long flushes) {
+        bytesLogged += bytes;
+        flushCount += flushes;
+        steps++;
+    }
+
+    public synchronized long getBytesLogged() {
+        return bytesLogged;
+    }
+
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    public synchronized int getSteps() {
+        return steps;
+    }
+}
@@ -8,12 +8,13 @@ import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.model.Descriptor;
-import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.ListBoxModel;
 import jenkins.plugins.ssh2easy.gssh.client.SshClient;
 import net.sf.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest;
 
 import javax.annotation.Nonnull;
@@ -28,12 +29,14 @@ import java.util.logging.Logger;
  *
  * @author Jerry Cai
  */
-public class GsshShellBuilder extends Builder {
+public class GsshShellBuilder extends AbstractGroupTargetBuilder {
     private boolean disable;
     private String serverInfo;
     private String groupName;
     private String ip;
     private String shell;
+    private boolean streamScript;
+    private String interpreter;
 
     public GsshShellBuilder() {
     }
@@ -50,24 +53,55 @@ public class GsshShellBuilder extends Builder {
     @Override
     public boolean perform(AbstractBuild build, Launcher launcher, BuildListener listener)
 			throws IOException, InterruptedException {
-        LoggerDecorator logger = new LoggerDecorator(listener.getLogger());
+        LoggerDecorator logger = LoggerDecorator.buffered(listener.getLogger());
+        try {
+            return perform(build, listener, logger);
+        } finally {
+            logger.close();
+            GsshLogMetricsAction.record(build, logger);
+        }
+    }
+
+    private boolean perform(AbstractBuild<?, ?> build, BuildListener listener, LoggerDecorator logger)
+            throws IOException, InterruptedException {
         logger.delimiter();
         if (isDisable()) {
             logger.log("Current step is disabled, skipping execution");
             return true;
         }
-        // This is where you 'build' the project.
-        SshClient sshHandler = GsshBuilderWrapper.DESCRIPTOR.getSshClient(getGroupName(), getIp());
-
         EnvVars env = build.getEnvironment(listener);
         String enhancedShell = Util.replaceMacro(getShell(), env);
         String shell = Util.fixEmptyAndTrim(enhancedShell);
         if (shell == null) {
             return false;
         }
-        int exitStatus = sshHandler.executeShell(logger, shell);
-        logger.delimiter();
-        return exitStatus == SshClient.STATUS_SUCCESS;
+        return run(build, listener, logger, (client, hostLogger) -> execute(client, hostLogger, shell));
+    }
+
+    private int execute(SshClient client, LoggerDecorator logger, String shell) {
+        return isStreamScript() ? client.executeScript(logger, getInterpreter(), shell)
+                : client.executeShell(logger, shell);
+    }
+
+    public boolean isStreamScript() {
+        return streamScript;
+    }
+
+    /**
+     * Streams the shell into the stdin of a remote interpreter instead of passing it as a command line.
+     */
+    @DataBoundSetter
+    public void setStreamScript(boolean streamScript) {
+        this.streamScript = streamScript;
+    }
+
+    public String getInterpreter() {
+        return StringUtils.defaultIfBlank(interpreter, SshClient.DEFAULT_INTERPRETER);
+    }
+
+    @DataBoundSetter
+    public void setInterpreter(String interpreter) {
+        this.interpreter = Util.fixEmptyAndTrim(interpreter);
     }
 
     // Overridden for better type safety.
@@ -119,7 +153,7 @@ public class GsshShellBuilder extends Builder {
     }
 
     @Extension
-    public static class DescriptorImpl extends BuildStepDescriptor<Builder> {
+    public static class DescriptorImpl extends GroupTargetDescriptor {
         @Override
         public boolean isApplicable(Class<? extends AbstractProject> jobType) {
             return true;
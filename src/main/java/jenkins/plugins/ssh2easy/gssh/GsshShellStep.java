@@ -0,0 +1,100 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.Extension;
+import hudson.model.TaskListener;
+import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshResult;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipeline counterpart of {@link GsshShellBuilder}: {@code gsshShell serverInfo: ..., shell: ...}. The shell runs
+ * the way the builder runs it, on the single server of the server info.
+ */
+public class GsshShellStep extends GsshStep {
+    private final String shell;
+    private boolean streamScript;
+    private String interpreter;
+
+    @DataBoundConstructor
+    public GsshShellStep(String serverInfo, String shell) {
+        super(serverInfo);
+        this.shell = shell;
+    }
+
+    public String getShell() {
+        return shell;
+    }
+
+    public boolean isStreamScript() {
+        return streamScript;
+    }
+
+    /**
+     * Streams the script into a remote interpreter instead of uploading it as a file first.
+     */
+    @DataBoundSetter
+    public void setStreamScript(boolean streamScript) {
+        this.streamScript = streamScript;
+    }
+
+    public String getInterpreter() {
+        return StringUtils.isBlank(interpreter) ? SshClient.DEFAULT_INTERPRETER : interpreter;
+    }
+
+    @DataBoundSetter
+    public void setInterpreter(String interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    private static final class Execution extends GsshStepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final transient GsshShellStep step;
+
+        Execution(GsshShellStep step, StepContext context) {
+            super(step, context);
+            this.step = step;
+        }
+
+        @Override
+        protected CompletableFuture<SshResult> start(SshClient client, LoggerDecorator logger) {
+            if (step.isStreamScript()) {
+                return client.executeScriptAsync(logger, step.getInterpreter(), step.getShell());
+            }
+            return client.executeShellAsync(logger, step.getShell());
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends GsshStepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "gsshShell";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return Messages.SSHSHELL_DisplayName();
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.singleton(TaskListener.class);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.util.ListBoxModel;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * Pipeline step against one configured server, identified by its server info as in the freestyle builders.
+ * Steps offer the main options of their builder; whole group targets, host filters, batches and output limits
+ * are only available in the builders.
+ */
+public abstract class GsshStep extends Step {
+    private final String serverInfo;
+    private boolean returnStatus;
+
+    protected GsshStep(String serverInfo) {
+        this.serverInfo = serverInfo;
+    }
+
+    public String getServerInfo() {
+        return serverInfo;
+    }
+
+    public String getGroupName() {
+        return Server.parseServerGroupName(serverInfo);
+    }
+
+    public String getIp() {
+        return Server.parseIp(serverInfo);
+    }
+
+    public boolean isReturnStatus() {
+        return returnStatus;
+    }
+
+    /**
+     * Returns the exit status instead of failing the step when it is not zero.
+     */
+    @DataBoundSetter
+    public void setReturnStatus(boolean returnStatus) {
+        this.returnStatus = returnStatus;
+    }
+
+    public abstract static class GsshStepDescriptor extends StepDescriptor {
+        public ListBoxModel doFillServerInfoItems() {
+            ListBoxModel m = new ListBoxModel();
+            for (Server server : GsshBuilderWrapper.DESCRIPTOR.getServers()) {
+                m.add(server.getServerInfo());
+            }
+            return m;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.AbortException;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshResult;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a {@link GsshStep} asynchronously: {@link #start()} only starts the remote operation and returns, the step
+ * completes from the future of the {@link SshClient}. Neither the CPS VM thread nor an executor waits for the
+ * remote side, so many operations can run side by side in {@code parallel} branches. Groups on the Trilead or
+ * JSch transport still hold a thread of the shared worker pool per running step, only MINA does not.
+ */
+public abstract class GsshStepExecution extends StepExecution {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOG = Logger.getLogger(GsshStepExecution.class.getName());
+
+    private final transient GsshStep step;
+    private transient volatile CompletableFuture<SshResult> future;
+    private transient LoggerDecorator logger;
+
+    protected GsshStepExecution(GsshStep step, StepContext context) {
+        super(context);
+        this.step = step;
+    }
+
+    /**
+     * Starts the remote operation, without waiting for it.
+     */
+    protected abstract CompletableFuture<SshResult> start(SshClient client, LoggerDecorator logger) throws Exception;
+
+    @Override
+    public boolean start() throws Exception {
+        LoggerDecorator logger = LoggerDecorator.buffered(getContext().get(TaskListener.class).getLogger());
+        this.logger = logger;
+        logger.delimiter();
+        logger.log("Running on server -- " + step.getServerInfo());
+        CompletableFuture<SshResult> started;
+        try {
+            if (GsshBuilderWrapper.DESCRIPTOR.getServerGroup(step.getGroupName()) == null) {
+                throw new AbortException("No server group named " + step.getGroupName() + " is configured");
+            }
+            SshClient client = GsshBuilderWrapper.DESCRIPTOR.getSshClient(step.getGroupName(), step.getIp());
+            started = start(client, logger);
+        } catch (Exception e) {
+            closeLogger();
+            throw e;
+        }
+        future = started;
+        started.whenComplete((result, error) -> {
+            if (started.isCancelled()) {
+                // stop() has completed the step already
+                return;
+            }
+            if (error == null) {
+                logger.delimiter();
+            }
+            closeLogger();
+            if (error != null) {
+                getContext().onFailure(error instanceof CompletionException ? error.getCause() : error);
+                return;
+            }
+            if (result.isSuccess() || step.isReturnStatus()) {
+                getContext().onSuccess(result.getStatus());
+            } else {
+                getContext().onFailure(new AbortException("Remote operation on " + step.getServerInfo()
+                        + " failed with exit status " + result.getStatus()));
+            }
+        });
+        return false;
+    }
+
+    @Override
+    public void stop(@Nonnull Throwable cause) throws Exception {
+        CompletableFuture<SshResult> running = future;
+        if (running != null) {
+            running.cancel(true);
+        }
+        closeLogger();
+        getContext().onFailure(cause);
+    }
+
+    /**
+     * Writes out the buffered output and adds it to the log metrics of the build.
+     */
+    private synchronized void closeLogger() {
+        LoggerDecorator buffered = logger;
+        if (buffered == null) {
+            return;
+        }
+        logger = null;
+        try {
+            buffered.close();
+            GsshLogMetricsAction.record(getContext().get(Run.class), buffered);
+        } catch (IOException | InterruptedException e) {
+            LOG.log(Level.FINE, "Failed to flush the log of an ssh step", e);
+        }
+    }
+
+    @Override
+    public void onResume() {
+        // The remote operation belonged to the previous controller process
+        getContext().onFailure(new AbortException("The ssh operation was interrupted by a restart of Jenkins"));
+    }
+}
@@ -0,0 +1,128 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshResult;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipeline counterpart of {@link GsshFtpUploadBuilder}: uploads a file or directory of the workspace with
+ * {@code gsshUpload serverInfo: ..., localFilePath: ..., remoteLocation: ...}.
+ */
+public class GsshUploadStep extends GsshStep {
+    private final String localFilePath;
+    private final String remoteLocation;
+    private String fileName;
+    private TransferMode transferMode;
+    private int uploadWorkers;
+    private int retries;
+
+    @DataBoundConstructor
+    public GsshUploadStep(String serverInfo, String localFilePath, String remoteLocation) {
+        super(serverInfo);
+        this.localFilePath = localFilePath;
+        this.remoteLocation = remoteLocation;
+    }
+
+    public String getLocalFilePath() {
+        return localFilePath;
+    }
+
+    public String getRemoteLocation() {
+        return remoteLocation;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    @DataBoundSetter
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public TransferMode getTransferMode() {
+        return transferMode == null ? TransferMode.SFTP : transferMode;
+    }
+
+    @DataBoundSetter
+    public void setTransferMode(TransferMode transferMode) {
+        this.transferMode = transferMode;
+    }
+
+    public int getUploadWorkers() {
+        return uploadWorkers > 0 ? uploadWorkers : GsshFtpUploadBuilder.DEFAULT_UPLOAD_WORKERS;
+    }
+
+    @DataBoundSetter
+    public void setUploadWorkers(int uploadWorkers) {
+        this.uploadWorkers = uploadWorkers;
+    }
+
+    public int getRetries() {
+        return Math.max(0, retries);
+    }
+
+    @DataBoundSetter
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    private static final class Execution extends GsshStepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final transient GsshUploadStep step;
+
+        Execution(GsshUploadStep step, StepContext context) {
+            super(step, context);
+            this.step = step;
+        }
+
+        @Override
+        protected CompletableFuture<SshResult> start(SshClient client, LoggerDecorator logger) throws Exception {
+            TaskListener listener = getContext().get(TaskListener.class);
+            FilePath path = getContext().get(FilePath.class).child(step.getLocalFilePath());
+            GsshFtpUploadBuilder.Transfer transfer = new GsshFtpUploadBuilder.Transfer(
+                    GsshBuilderWrapper.DESCRIPTOR.getServerGroup(step.getGroupName()), step.getIp(), listener,
+                    step.getFileName(), step.getRemoteLocation(), step.getTransferMode(), step.getUploadWorkers(),
+                    false, step.getRetries());
+            return SshResult.onWorker(() -> transfer.run(client, logger, path),
+                    () -> path.isDirectory() ? 0L : path.length());
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends GsshStepDescriptor {
+        @Override
+        public String getFunctionName() {
+            return "gsshUpload";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return Messages.SSHFTPUPLOAD_DisplayName();
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return new HashSet<>(Arrays.asList(TaskListener.class, FilePath.class));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Number of hosts given either as an absolute count, e.g. {@code 3}, or as a share of the group, e.g. {@code 25%}.
+ */
+public final class HostCountSpec {
+    private HostCountSpec() {
+    }
+
+    /**
+     * Resolves {@code spec} against a group of {@code total} hosts. Percentages are rounded up, so that any
+     * non-zero share selects at least one host. Blank or malformed specs resolve to {@code defaultValue}.
+     */
+    public static int resolve(String spec, int total, int defaultValue) {
+        String value = StringUtils.trimToNull(spec);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            if (value.endsWith("%")) {
+                double percent = Double.parseDouble(value.substring(0, value.length() - 1).trim());
+                return (int) Math.ceil(total * Math.max(0, percent) / 100.0);
+            }
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static boolean isValid(String spec) {
+        String value = StringUtils.trimToNull(spec);
+        if (value == null) {
+            return true;
+        }
+        return value.matches("\\d+(\\.\\d+)?%|\\d+");
+    }
+}
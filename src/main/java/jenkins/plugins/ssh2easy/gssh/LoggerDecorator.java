@@ -1,14 +1,40 @@
 package jenkins.plugins.ssh2easy.gssh;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class LoggerDecorator {
+public class LoggerDecorator implements AutoCloseable {
     private static final String PREFIX = "[GSSH]";
     private final PrintStream delegate;
+    private final BufferedLogSink sink;
+    private final OutputStream output;
 
     public LoggerDecorator(PrintStream delegate) {
+        this(delegate, null, null);
+    }
+
+    private LoggerDecorator(PrintStream delegate, BufferedLogSink sink, OutputStream output) {
         this.delegate = delegate;
+        this.sink = sink;
+        this.output = output;
+    }
+
+    /**
+     * Logs into a {@link BufferedLogSink} in front of {@code target}. The logger has to be closed once the step
+     * is done, so that the remaining output reaches the build log.
+     */
+    public static LoggerDecorator buffered(PrintStream target) {
+        BufferedLogSink sink = new BufferedLogSink(target);
+        try {
+            return new LoggerDecorator(new PrintStream(sink, false, StandardCharsets.UTF_8.name()), sink, null);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public void delimiter() {
@@ -26,15 +52,76 @@ public class LoggerDecorator {
     }
 
     public void log(String template, Object... args) {
-        log(String.format(template, args));
+        // Formatting is skipped for plain messages, which is what remote output mostly produces
+        log(args.length == 0 ? template : String.format(template, args));
     }
 
     public void log(String message) {
-        printInternal(String.format("%s %s", PREFIX, message));
+        printInternal(PREFIX + " " + message);
     }
 
+    /**
+     * Stream remote command output is copied to.
+     */
     public OutputStream outputStream() {
-        return delegate;
+        return output == null ? delegate : output;
+    }
+
+    /**
+     * Logger handing remote output and its own messages to {@code output}, e.g. an {@link OutputCapture}, so that
+     * messages such as the exit status keep their place after the output. Closing it leaves this logger open.
+     */
+    public LoggerDecorator withOutput(OutputStream output) {
+        try {
+            return new LoggerDecorator(new PrintStream(output, true, StandardCharsets.UTF_8.name()), null, output);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Logger writing to the same place as this one, adding the bytes of remote output to {@code bytes} on the
+     * way. Messages of the plugin are not counted.
+     */
+    public LoggerDecorator countingOutput(AtomicLong bytes) {
+        return new LoggerDecorator(delegate, null, new FilterOutputStream(outputStream()) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytes.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                bytes.addAndGet(len);
+            }
+        });
+    }
+
+    /**
+     * Bytes which went through the buffered sink, {@code 0} for an unbuffered logger.
+     */
+    public long getBytesLogged() {
+        return sink == null ? 0 : sink.getBytesLogged();
+    }
+
+    /**
+     * Writes to the build log the buffered sink needed, {@code 0} for an unbuffered logger.
+     */
+    public long getFlushCount() {
+        return sink == null ? 0 : sink.getFlushCount();
+    }
+
+    /**
+     * Writes out buffered output. The underlying build log stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        delegate.flush();
+        if (sink != null) {
+            sink.close();
+        }
     }
 
     private void printInternal(String message) {
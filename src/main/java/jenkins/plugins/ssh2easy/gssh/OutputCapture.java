@@ -0,0 +1,185 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.BuildListener;
+import hudson.model.Run;
+import jenkins.model.ArtifactManager;
+import jenkins.util.VirtualFile;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the console readable for commands with huge output: the first bytes go to the log as they arrive, the
+ * last ones are held in a fixed ring buffer and printed when the command is done, and everything in between is
+ * only written to a gzip compressed build artifact. Heap use is bounded by the tail size, whatever the command
+ * prints.
+ */
+public class OutputCapture extends OutputStream {
+    public static final int DEFAULT_HEAD_KB = 64;
+    public static final int DEFAULT_TAIL_KB = 64;
+    public static final String ARTIFACT_DIR = "ssh2easy-output";
+
+    private static final int ARTIFACT_BUFFER_SIZE = 64 * 1024;
+
+    private final LoggerDecorator logger;
+    private final OutputStream console;
+    private final OutputStream artifact;
+    private final String artifactName;
+    private final long headBytes;
+    private final byte[] tail;
+    private int tailStart;
+    private int tailLength;
+    private long written;
+    private boolean closed;
+    private File staged;
+    private ArtifactManager artifactManager;
+    private BuildListener listener;
+
+    public OutputCapture(LoggerDecorator logger, OutputStream artifact, String artifactName, long headBytes,
+                         int tailBytes) throws IOException {
+        this.logger = logger;
+        this.console = logger.outputStream();
+        this.artifact = new GZIPOutputStream(artifact, ARTIFACT_BUFFER_SIZE);
+        this.artifactName = artifactName;
+        this.headBytes = Math.max(0, headBytes);
+        this.tail = new byte[Math.max(0, tailBytes)];
+    }
+
+    /**
+     * Captures the remote output of one host into a new artifact of the build. The output is staged in the build
+     * directory and handed to the artifact manager of the build when the capture is closed.
+     */
+    public static OutputCapture open(Run<?, ?> build, BuildListener listener, String ip, LoggerDecorator logger,
+                                     int headKb, int tailKb) throws IOException {
+        File dir = new File(build.getRootDir(), ARTIFACT_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create " + dir);
+        }
+        ArtifactManager manager = build.pickArtifactManager();
+        VirtualFile archived = manager.root().child(ARTIFACT_DIR);
+        for (int i = 1; ; i++) {
+            String name = ip + "-" + i + ".log.gz";
+            File file = new File(dir, name);
+            // Steps running in parallel against the same host each get a file of their own
+            if (!archived.child(name).exists() && file.createNewFile()) {
+                OutputCapture capture = new OutputCapture(logger, new FileOutputStream(file),
+                        ARTIFACT_DIR + "/" + name, headKb * 1024L, tailKb * 1024);
+                capture.staged = file;
+                capture.artifactManager = manager;
+                capture.listener = listener;
+                return capture;
+            }
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            // Late messages of the command logger follow the tail
+            console.write(b, off, len);
+            return;
+        }
+        artifact.write(b, off, len);
+        int head = (int) Math.min(len, Math.max(0, headBytes - written));
+        if (head > 0) {
+            console.write(b, off, head);
+        }
+        appendTail(b, off + head, len - head);
+        written += len;
+    }
+
+    private void appendTail(byte[] b, int off, int len) {
+        int capacity = tail.length;
+        if (len == 0 || capacity == 0) {
+            return;
+        }
+        if (len >= capacity) {
+            System.arraycopy(b, off + len - capacity, tail, 0, capacity);
+            tailStart = 0;
+            tailLength = capacity;
+            return;
+        }
+        int end = (tailStart + tailLength) % capacity;
+        int first = Math.min(len, capacity - end);
+        System.arraycopy(b, off, tail, end, first);
+        System.arraycopy(b, off + first, tail, 0, len - first);
+        int overflow = tailLength + len - capacity;
+        if (overflow > 0) {
+            tailStart = (tailStart + overflow) % capacity;
+            tailLength = capacity;
+        } else {
+            tailLength += len;
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        console.flush();
+    }
+
+    /**
+     * Completes the artifact and prints the retained tail, preceded by a note when output was left out, then
+     * archives the artifact.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            artifact.close();
+        } finally {
+            printTail();
+        }
+        if (staged != null) {
+            archive();
+        }
+    }
+
+    private void printTail() throws IOException {
+        long omitted = Math.max(0, written - headBytes) - tailLength;
+        if (omitted > 0) {
+            console.write('\n');
+            logger.log("%d of %d bytes of output omitted, the full output is archived as %s",
+                    omitted, written, artifactName);
+        }
+        int first = Math.min(tailLength, tail.length - tailStart);
+        console.write(tail, tailStart, first);
+        console.write(tail, 0, tailLength - first);
+        console.flush();
+    }
+
+    private void archive() throws IOException {
+        try {
+            artifactManager.archive(new FilePath(staged.getParentFile()), new Launcher.LocalLauncher(listener),
+                    listener, Collections.singletonMap(artifactName, staged.getName()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while archiving " + artifactName);
+        }
+        // Left in the build directory when archiving failed, so the output is not lost
+        Files.deleteIfExists(staged.toPath());
+    }
+
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    public String getArtifactName() {
+        return artifactName;
+    }
+}
@@ -1,14 +1,42 @@
 package jenkins.plugins.ssh2easy.gssh;
 
-import jenkins.plugins.ssh2easy.gssh.client.JenkinsSshClient;
+import jenkins.plugins.ssh2easy.gssh.client.PipelinedSftpUploader;
+import jenkins.plugins.ssh2easy.gssh.client.ReconnectPolicy;
 import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshTransport;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.io.Serializable;
+
+/**
+ * Connection settings shared by a group of servers. Serializable, so that operations can be shipped to agents.
+ */
+public class ServerGroup implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Matches the default MaxSessions of OpenSSH.
+     */
+    public static final int DEFAULT_MAX_CHANNELS = 10;
+    /**
+     * Seconds between keep-alive messages, short enough for the idle timeout of common NAT gateways.
+     */
+    public static final int DEFAULT_KEEP_ALIVE_INTERVAL = 30;
 
-public class ServerGroup {
     private String groupName;
     private int port;
     private String username;
     private String password;
+    private int maxChannels;
+    private int sftpWindow;
+    private CompressionMode compression;
+    private int keepAliveInterval;
+    /**
+     * {@code null} for groups saved before the setting existed, which get the default.
+     */
+    private Integer connectRetries;
+    private String transport;
 
     public ServerGroup() {
     }
@@ -22,11 +50,11 @@ public class ServerGroup {
     }
 
     public SshClient getSshClient(Server server) {
-        return JenkinsSshClient.newInstance(this, server.getIp());
+        return getSshClient(server.getIp());
     }
 
     public SshClient getSshClient(String ip) {
-        return JenkinsSshClient.newInstance(this, ip);
+        return SshTransport.byId(getTransport()).createClient(this, ip);
     }
 
     public String getGroupName() {
@@ -60,4 +88,80 @@ public class ServerGroup {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    /**
+     * Number of channels operations may open concurrently on one connection to a server of this group.
+     * A new connection is only opened when all existing ones carry that many channels.
+     */
+    public int getMaxChannels() {
+        return maxChannels > 0 ? maxChannels : DEFAULT_MAX_CHANNELS;
+    }
+
+    @DataBoundSetter
+    public void setMaxChannels(int maxChannels) {
+        this.maxChannels = maxChannels;
+    }
+
+    /**
+     * Number of SFTP write requests kept in flight during uploads. Raise it for links with a high round trip
+     * time, so that the window covers the bandwidth-delay product.
+     */
+    public int getSftpWindow() {
+        return sftpWindow > 0 ? sftpWindow : PipelinedSftpUploader.DEFAULT_WINDOW;
+    }
+
+    @DataBoundSetter
+    public void setSftpWindow(int sftpWindow) {
+        this.sftpWindow = sftpWindow;
+    }
+
+    /**
+     * Transport compression of connections to the servers of this group. Automatic mode measures the transfer
+     * throughput with and without compression per server and keeps using the faster one.
+     */
+    public CompressionMode getCompression() {
+        return compression == null ? CompressionMode.OFF : compression;
+    }
+
+    @DataBoundSetter
+    public void setCompression(CompressionMode compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Seconds between keep-alive messages on open connections, which keep NAT gateways and firewalls from
+     * dropping connections idle in the pool or waiting for a long running command.
+     */
+    public int getKeepAliveInterval() {
+        return keepAliveInterval > 0 ? keepAliveInterval : DEFAULT_KEEP_ALIVE_INTERVAL;
+    }
+
+    @DataBoundSetter
+    public void setKeepAliveInterval(int keepAliveInterval) {
+        this.keepAliveInterval = keepAliveInterval;
+    }
+
+    /**
+     * Number of times a connect failing with a network error is retried, with exponential back-off.
+     */
+    public int getConnectRetries() {
+        return connectRetries == null ? ReconnectPolicy.DEFAULT_RETRIES : Math.max(0, connectRetries);
+    }
+
+    @DataBoundSetter
+    public void setConnectRetries(int connectRetries) {
+        this.connectRetries = connectRetries;
+    }
+
+    /**
+     * Identifier of the {@link SshTransport} which connects to the servers of this group.
+     */
+    public String getTransport() {
+        return transport == null || transport.isEmpty() ? SshTransport.DEFAULT_ID : transport;
+    }
+
+    @DataBoundSetter
+    public void setTransport(String transport) {
+        this.transport = transport;
+    }
 }
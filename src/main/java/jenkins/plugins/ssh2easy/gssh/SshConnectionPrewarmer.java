@@ -0,0 +1,150 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.Extension;
+import hudson.model.Project;
+import hudson.model.Queue;
+import hudson.model.queue.QueueListener;
+import hudson.tasks.BuildWrapper;
+import hudson.tasks.Builder;
+import jenkins.plugins.ssh2easy.gssh.client.DefaultSshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshClient;
+import jenkins.plugins.ssh2easy.gssh.client.SshExecutors;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opens and authenticates pooled connections to the servers used by the ssh2easy steps of a job as soon as a
+ * build of it enters the queue, so that its first remote step starts on a ready connection instead of spending
+ * its first seconds on the handshake.
+ * <p>
+ * At most {@code maxConnections} connects run at the same time and at most {@code maxHostsPerBuild} hosts are
+ * warmed per queued build; further requests are dropped rather than queued. Both are system properties
+ * prefixed by this class name, {@code disabled=true} turns pre-warming off.
+ */
+@Extension
+public class SshConnectionPrewarmer extends QueueListener {
+    private static final Logger LOG = Logger.getLogger(SshConnectionPrewarmer.class.getName());
+
+    public static final boolean DISABLED = Boolean.getBoolean(SshConnectionPrewarmer.class.getName() + ".disabled");
+    public static final int MAX_CONNECTIONS =
+            Integer.getInteger(SshConnectionPrewarmer.class.getName() + ".maxConnections", 16);
+    public static final int MAX_HOSTS_PER_BUILD =
+            Integer.getInteger(SshConnectionPrewarmer.class.getName() + ".maxHostsPerBuild", 8);
+
+    private static final LoggerDecorator QUIET = new LoggerDecorator(new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    }));
+
+    private final Semaphore permits = new Semaphore(Math.max(1, MAX_CONNECTIONS));
+
+    @Override
+    public void onEnterWaiting(Queue.WaitingItem item) {
+        if (DISABLED || !(item.task instanceof Project)) {
+            return;
+        }
+        int warmed = 0;
+        for (Target target : collectTargets((Project<?, ?>) item.task).values()) {
+            if (warmed++ >= MAX_HOSTS_PER_BUILD || !permits.tryAcquire()) {
+                LOG.fine("Pre-warm limit reached, not warming further connections for " + item.task.getName());
+                return;
+            }
+            SshExecutors.workers().submit(() -> {
+                try {
+                    warm(target);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+    }
+
+    private static Map<String, Target> collectTargets(Project<?, ?> project) {
+        Map<String, Target> targets = new LinkedHashMap<>();
+        for (BuildWrapper wrapper : project.getBuildWrappersList()) {
+            if (wrapper instanceof GsshBuilderWrapper && !((GsshBuilderWrapper) wrapper).isDisable()) {
+                GsshBuilderWrapper hook = (GsshBuilderWrapper) wrapper;
+                // Uploaded scripts need a transfer session and a command connection
+                add(targets, hook.getGroupName(), hook.getIp(), !hook.isStreamScript(), true);
+            }
+        }
+        for (Builder builder : project.getBuildersList()) {
+            if (builder instanceof GsshCommandBuilder && !((GsshCommandBuilder) builder).isDisable()) {
+                GsshCommandBuilder step = (GsshCommandBuilder) builder;
+                addAll(targets, step.getGroupName(), step.getIp(), step.isGroupTarget(), step.getHostFilter(),
+                        true, false);
+            } else if (builder instanceof GsshShellBuilder && !((GsshShellBuilder) builder).isDisable()) {
+                GsshShellBuilder step = (GsshShellBuilder) builder;
+                addAll(targets, step.getGroupName(), step.getIp(), step.isGroupTarget(), step.getHostFilter(),
+                        !step.isStreamScript(), step.isStreamScript());
+            } else if (builder instanceof GsshFtpUploadBuilder) {
+                GsshFtpUploadBuilder step = (GsshFtpUploadBuilder) builder;
+                if (!step.isDisable() && !step.isRunOnAgent()) {
+                    add(targets, step.getGroupName(), step.getIp(), false, true);
+                }
+            } else if (builder instanceof GsshFtpDownloadBuilder) {
+                GsshFtpDownloadBuilder step = (GsshFtpDownloadBuilder) builder;
+                if (!step.isDisable() && !step.isRunOnAgent()) {
+                    add(targets, step.getGroupName(), step.getIp(), false, true);
+                }
+            }
+        }
+        return targets;
+    }
+
+    private static void addAll(Map<String, Target> targets, String groupName, String ip, boolean groupTarget,
+                               String hostFilter, boolean commands, boolean transfers) {
+        if (!groupTarget) {
+            add(targets, groupName, ip, commands, transfers);
+        } else if (groupName != null) {
+            for (Server server : GroupExecution.selectServers(groupName, hostFilter)) {
+                add(targets, server.getServerGroupName(), server.getIp(), commands, transfers);
+            }
+        }
+    }
+
+    private static void add(Map<String, Target> targets, String groupName, String ip, boolean commands,
+                            boolean transfers) {
+        if (groupName == null || ip == null) {
+            return;
+        }
+        Target target = targets.computeIfAbsent(groupName.trim() + "/" + ip.trim(),
+                key -> new Target(groupName, ip));
+        target.commands |= commands;
+        target.transfers |= transfers;
+    }
+
+    private static void warm(Target target) {
+        ServerGroup group = GsshBuilderWrapper.DESCRIPTOR.getServerGroup(target.groupName);
+        if (group == null) {
+            return;
+        }
+        SshClient client = group.getSshClient(target.ip);
+        try {
+            if (client instanceof DefaultSshClient) {
+                ((DefaultSshClient) client).prewarm(QUIET, target.commands, target.transfers);
+            }
+        } catch (Exception e) {
+            LOG.log(Level.FINE, "Failed to pre-warm ssh connection to " + target.ip, e);
+        }
+    }
+
+    private static final class Target {
+        private final String groupName;
+        private final String ip;
+        private boolean commands;
+        private boolean transfers;
+
+        private Target(String groupName, String ip) {
+            this.groupName = groupName;
+            this.ip = ip;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.Extension;
+import hudson.model.PeriodicWork;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically closes pooled SSH connections which have been idle for too long.
+ */
+@Extension
+public class SshSessionPoolMaintenance extends PeriodicWork {
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.SECONDS.toMillis(30);
+    }
+
+    @Override
+    protected void doRun() {
+        GsshBuilderWrapper.DESCRIPTOR.evictIdleSessions();
+    }
+}
@@ -0,0 +1,63 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import hudson.util.ListBoxModel;
+
+/**
+ * How the SFTP upload and download steps move directories.
+ */
+public enum TransferMode {
+    SFTP("SFTP, file by file", false),
+    TAR("tar stream over one ssh channel", false),
+    TAR_GZIP("gzip compressed tar stream over one ssh channel", true),
+    SYNC("SFTP, only files which differ from the remote copy", false);
+
+    private final String displayName;
+    private final boolean compressed;
+
+    TransferMode(String displayName, boolean compressed) {
+        this.displayName = displayName;
+        this.compressed = compressed;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public boolean isTar() {
+        return this == TAR || this == TAR_GZIP;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Syncing compares local files against the remote copy, so it only applies to uploads.
+     */
+    public boolean isDownloadSupported() {
+        return this != SYNC;
+    }
+
+    /**
+     * Modes offered by the download builder and step.
+     */
+    public static ListBoxModel fillDownloadItems() {
+        ListBoxModel items = new ListBoxModel();
+        for (TransferMode mode : values()) {
+            if (mode.isDownloadSupported()) {
+                items.add(mode.getDisplayName(), mode.name());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Rejects modes a download cannot honour, instead of silently falling back to plain SFTP.
+     */
+    public static TransferMode checkDownload(TransferMode mode) {
+        if (mode != null && !mode.isDownloadSupported()) {
+            throw new IllegalArgumentException("Transfer mode " + mode + " only applies to uploads");
+        }
+        return mode;
+    }
+}
@@ -0,0 +1,64 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import jenkins.plugins.ssh2easy.gssh.client.TransferVerificationException;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries a failed file transfer with exponential back-off. Every retry resumes the transfer instead of
+ * starting it over, so a connection dropped late into a large file only costs the remaining bytes.
+ * <p>
+ * Aborted builds and copies which failed their verification are not retried: the first must stop, and the
+ * resume already started the second over once.
+ */
+public class TransferRetry {
+    public static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+    public static final long MAX_BACKOFF = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * One attempt of a transfer, returning its exit status.
+     */
+    public interface Attempt {
+        int run() throws Exception;
+    }
+
+    private final int retries;
+
+    public TransferRetry(int retries) {
+        this.retries = Math.max(0, retries);
+    }
+
+    /**
+     * Runs {@code transfer}, then {@code resume} after each failure until the retries are used up.
+     */
+    public int run(LoggerDecorator logger, Attempt transfer, Attempt resume) throws Exception {
+        long backoff = INITIAL_BACKOFF;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return attempt == 0 ? transfer.run() : resume.run();
+            } catch (Exception e) {
+                if (attempt >= retries || !isRetryable(e)) {
+                    throw e;
+                }
+                logger.log("Transfer failed: %s, resuming in %d ms (retry %d of %d)",
+                        e.getMessage(), backoff, attempt + 1, retries);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
+            }
+        }
+    }
+
+    static boolean isRetryable(Throwable failure) {
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+                    || cause instanceof TransferVerificationException) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,15 +1,27 @@
 package jenkins.plugins.ssh2easy.gssh.client;
 
+import hudson.FilePath;
 import jenkins.plugins.ssh2easy.gssh.GsshPluginException;
 import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.Random;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public abstract class AbstractSshClient implements SshClient {
     public static final String TEMP_PATH = "/var";
     public static final String LATEST_EXEC_DEBUG_SH = "/var/latest_exec_debug.sh";
+    /**
+     * Scripts run by {@link #executeShellByFTP} are kept here under the SHA-256 of their content, so an
+     * unchanged script is uploaded once and reused by later runs.
+     */
+    public static final String SCRIPT_CACHE_PATH = TEMP_PATH + "/ssh2easy-scripts";
+    /**
+     * Exit status of the script command when the cached script is no longer on the server, e.g. because a tmp
+     * cleaner removed it.
+     */
+    public static final int SCRIPT_MISSING_STATUS = 127;
 
     @Override
     public int uploadFile(LoggerDecorator logger, String fileName, File file, String serverLocation) {
@@ -27,6 +39,29 @@ public abstract class AbstractSshClient implements SshClient {
         }
     }
 
+    @Override
+    public int uploadFile(LoggerDecorator logger, String fileName, FilePath file, String serverLocation) {
+        logger.log("sftp upload file [%s] to target location [%s] with file name is [%s]",
+                file.getRemote(), serverLocation, fileName);
+        try (InputStream fileContent = openStream(file, 0)) {
+            return uploadFile(logger, fileName, fileContent, serverLocation);
+        } catch (GsshPluginException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.log("Upload failed", e);
+            throw new GsshPluginException("Upload failed", e);
+        }
+    }
+
+    /**
+     * Opens a file for reading from {@code offset} on. Files on an agent are prefetched in large chunks, so
+     * that the upload does not stall on every remoting round trip.
+     */
+    protected static InputStream openStream(FilePath file, long offset) throws IOException, InterruptedException {
+        InputStream in = offset > 0 ? file.readFromOffset(offset) : file.read();
+        return file.isRemote() ? new PrefetchInputStream(in) : in;
+    }
+
     @Override
     public int uploadFile(LoggerDecorator logger, String fileName, String fileContent, String serverLocation) {
         try (InputStream bis = new ByteArrayInputStream(fileContent.getBytes(StandardCharsets.UTF_8))) {
@@ -38,17 +73,51 @@ public abstract class AbstractSshClient implements SshClient {
 
     @Override
     public int executeShellByFTP(LoggerDecorator logger, String shell) {
-        Random random = new Random();
         logger.log("Executing shell: %s", shell);
-        String shellName = "tempshell_" + System.currentTimeMillis() + random.nextInt() + ".sh";
-        String shellFile = TEMP_PATH + "/" + shellName;
+        String shellName = scriptName(shell);
+        String shellFile = SCRIPT_CACHE_PATH + "/" + shellName;
+        uploadScript(logger, shellName, shell, false);
+        // Keeping the copy for debugging and running the script take a single exec; touching the script marks
+        // it as used, so that pruning of the cache keeps it
+        String command = "[ -f " + shellFile + " ] || exit " + SCRIPT_MISSING_STATUS + "; chmod 755 " + shellFile
+                + " && touch -c " + shellFile + " && cp -f " + shellFile + " " + LATEST_EXEC_DEBUG_SH + "; . "
+                + shellFile;
+        int status = executeCommand(logger, command);
+        if (status == SCRIPT_MISSING_STATUS && uploadScript(logger, shellName, shell, true)) {
+            logger.log("Script %s was missing on the server, running it again", shellName);
+            status = executeCommand(logger, command);
+        }
+        return status;
+    }
+
+    /**
+     * Makes sure the script is stored in {@link #SCRIPT_CACHE_PATH} under the given name. With {@code verify}
+     * the server is checked even if the script is known to be there.
+     *
+     * @return whether the script had to be uploaded; when verifying, {@code true} only if it was missing
+     */
+    protected boolean uploadScript(LoggerDecorator logger, String scriptName, String script, boolean verify) {
+        if (verify) {
+            // Without a way to look at the server, a failed script is not run twice
+            return false;
+        }
+        uploadFile(logger, scriptName, script, SCRIPT_CACHE_PATH);
+        return true;
+    }
+
+    /**
+     * Remote file name of a script, derived from its content.
+     */
+    protected static String scriptName(String script) {
         try {
-            uploadFile(logger, shellName, shell, TEMP_PATH);
-            chmod(logger, 777, shellFile);
-            return executeCommand(logger, ". " + shellFile);
-        } finally {
-            remove(logger, LATEST_EXEC_DEBUG_SH);
-            mv(logger, shellFile, LATEST_EXEC_DEBUG_SH);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return name.append(".sh").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new GsshPluginException(e);
         }
     }
 
@@ -0,0 +1,26 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.Session;
+import jenkins.plugins.ssh2easy.gssh.ServerGroup;
+
+/**
+ * Creates clients for operations running inside an agent JVM, where the descriptor with its pools is not
+ * available. Connections are pooled per agent JVM; as no periodic task runs there, idle ones are evicted
+ * whenever a new client is created.
+ */
+public final class AgentSshClients {
+    private static final SshSessionPool<Session> SESSION_POOL =
+            new SshSessionPool<>(DefaultSshClient.SESSION_HANDLER);
+    private static final CompressionAdvisor COMPRESSION_ADVISOR = new CompressionAdvisor();
+
+    private AgentSshClients() {
+    }
+
+    public static SshClient create(ServerGroup group, String ip) {
+        SESSION_POOL.evictIdle();
+        DefaultSshClient client = new DefaultSshClient(group, ip);
+        client.setSessionPool(SESSION_POOL);
+        client.setCompressionAdvisor(COMPRESSION_ADVISOR);
+        return client;
+    }
+}
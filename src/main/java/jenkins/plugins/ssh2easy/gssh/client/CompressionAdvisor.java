@@ -0,0 +1,86 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides per host whether transport compression pays off. Throughput of transfers is recorded separately for
+ * compressed and plain connections and the faster one is used. Compression wins on slow links with compressible
+ * data and loses on fast local links, where deflating costs more time than it saves on the wire.
+ * <p>
+ * Both variants are probed once before a decision is made, and the losing one is probed again every
+ * {@link #REPROBE_INTERVAL} transfers, so the choice follows changes of the link or of the transferred data.
+ */
+public class CompressionAdvisor {
+    /**
+     * Smaller transfers are dominated by round trips and say nothing about the link throughput.
+     */
+    public static final long MIN_SAMPLE_BYTES = 1024 * 1024;
+    public static final int REPROBE_INTERVAL = 20;
+
+    /**
+     * Weight of a new sample in the moving average of the throughput.
+     */
+    private static final double SAMPLE_WEIGHT = 0.3;
+
+    private final ConcurrentMap<SessionKey, Host> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Tells whether the next connection to {@code host} should be compressed.
+     */
+    public boolean shouldCompress(SessionKey host) {
+        return hosts.computeIfAbsent(host.withCompression(false), k -> new Host()).choose();
+    }
+
+    /**
+     * Records a finished transfer of {@code bytes} which took {@code millis} on a connection to {@code host}.
+     */
+    public void record(SessionKey host, long bytes, long millis) {
+        if (bytes < MIN_SAMPLE_BYTES) {
+            return;
+        }
+        double rate = bytes / (double) Math.max(1, millis);
+        hosts.computeIfAbsent(host.withCompression(false), k -> new Host()).record(host.isCompressed(), rate);
+    }
+
+    /**
+     * Measured throughput in bytes per millisecond, or 0 while no transfer has been recorded.
+     */
+    public double getThroughput(SessionKey host, boolean compressed) {
+        Host state = hosts.get(host.withCompression(false));
+        return state == null ? 0 : state.rate(compressed);
+    }
+
+    private static final class Host {
+        private double plainRate;
+        private double compressedRate;
+        private int choices;
+
+        synchronized boolean choose() {
+            if (plainRate == 0) {
+                return false;
+            }
+            if (compressedRate == 0) {
+                return true;
+            }
+            boolean compress = compressedRate > plainRate;
+            return ++choices % REPROBE_INTERVAL == 0 ? !compress : compress;
+        }
+
+        synchronized void record(boolean compressed, double rate) {
+            if (compressed) {
+                compressedRate = average(compressedRate, rate);
+            } else {
+                plainRate = average(plainRate, rate);
+            }
+        }
+
+        synchronized double rate(boolean compressed) {
+            return compressed ? compressedRate : plainRate;
+        }
+
+        private static double average(double current, double sample) {
+            return current == 0 ? sample : current + SAMPLE_WEIGHT * (sample - current);
+        }
+    }
+}
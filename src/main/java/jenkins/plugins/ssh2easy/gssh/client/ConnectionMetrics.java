@@ -0,0 +1,98 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters about the health of SSH connections: connects, retried connects and how long reconnecting took,
+ * failed keep-alives and pooled connections found dead before reuse.
+ */
+public final class ConnectionMetrics {
+    private static final ConnectionMetrics INSTANCE = new ConnectionMetrics();
+
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder reconnectMillis = new LongAdder();
+    private final AtomicLong maxReconnectMillis = new AtomicLong();
+    private final LongAdder keepAliveFailures = new LongAdder();
+    private final LongAdder staleConnections = new LongAdder();
+
+    private ConnectionMetrics() {
+    }
+
+    public static ConnectionMetrics get() {
+        return INSTANCE;
+    }
+
+    void connected() {
+        connects.increment();
+    }
+
+    void connectFailed() {
+        connectFailures.increment();
+    }
+
+    void retried() {
+        retries.increment();
+    }
+
+    /**
+     * Records a connect which succeeded after at least one retry, {@code millis} after the first attempt.
+     */
+    void reconnected(long millis) {
+        reconnects.increment();
+        reconnectMillis.add(millis);
+        maxReconnectMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    void keepAliveFailed() {
+        keepAliveFailures.increment();
+    }
+
+    void staleConnectionDiscarded() {
+        staleConnections.increment();
+    }
+
+    public long getConnects() {
+        return connects.sum();
+    }
+
+    public long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    public long getAverageReconnectMillis() {
+        long count = reconnects.sum();
+        return count == 0 ? 0 : reconnectMillis.sum() / count;
+    }
+
+    public long getMaxReconnectMillis() {
+        return maxReconnectMillis.get();
+    }
+
+    public long getKeepAliveFailures() {
+        return keepAliveFailures.sum();
+    }
+
+    public long getStaleConnections() {
+        return staleConnections.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "connects=" + getConnects() + ", failed attempts=" + getConnectFailures() + ", retries=" + getRetries()
+                + ", reconnects=" + getReconnects() + ", reconnect latency avg/max=" + getAverageReconnectMillis()
+                + "/" + getMaxReconnectMillis() + " ms, keep-alive failures=" + getKeepAliveFailures()
+                + ", stale pooled connections=" + getStaleConnections();
+    }
+}
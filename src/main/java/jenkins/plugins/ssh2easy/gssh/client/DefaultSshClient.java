@@ -2,19 +2,27 @@ package jenkins.plugins.ssh2easy.gssh.client;
 
 import com.jcraft.jsch.*;
 import hudson.FilePath;
-import io.jenkins.cli.shaded.org.apache.sshd.client.subsystem.sftp.SftpClient;
+import jenkins.plugins.ssh2easy.gssh.CompressionMode;
 import jenkins.plugins.ssh2easy.gssh.GsshPluginException;
 import jenkins.plugins.ssh2easy.gssh.GsshUserInfo;
 import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
 import jenkins.plugins.ssh2easy.gssh.ServerGroup;
 import org.apache.commons.lang.StringEscapeUtils;
 
-import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is Ssh handler , user for handling SSH related event and requirments
@@ -25,10 +33,97 @@ public class DefaultSshClient extends AbstractSshClient {
 
     public static final String SSH_BEY = "\nexit $?";
 
+    /**
+     * How long to wait for the exit status once the command output has ended.
+     */
+    public static final long EXIT_STATUS_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Offered when compression is wanted; the delayed OpenSSH variant only starts after authentication.
+     */
+    public static final String COMPRESSION_ALGORITHMS = "zlib@openssh.com,zlib,none";
+
+    /**
+     * How long a script found in the script cache of a host is trusted to still be there without checking.
+     */
+    public static final long SCRIPT_CACHE_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * How many scripts are remembered as cached, over all hosts; the least recently used ones are forgotten.
+     */
+    public static final int SCRIPT_CACHE_ENTRIES = 1024;
+
+    /**
+     * Scripts in the script cache of a host which have not been run for this long are removed from it.
+     */
+    public static final long SCRIPT_CACHE_RETENTION = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * How often the script cache of a host is looked through for scripts to remove.
+     */
+    public static final long SCRIPT_CACHE_PRUNE_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * How long a pooled session may take to answer the channel request which checks it is still alive.
+     */
+    public static final int LIVENESS_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(5);
+
+    private static final Map<String, Long> CACHED_SCRIPTS = Collections.synchronizedMap(
+            new LinkedHashMap<String, Long>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > SCRIPT_CACHE_ENTRIES;
+                }
+            });
+
+    private static final Map<String, Long> PRUNED_HOSTS = Collections.synchronizedMap(
+            new LinkedHashMap<String, Long>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > SCRIPT_CACHE_ENTRIES;
+                }
+            });
+
+    public static final SshSessionPool.Handler<Session> SESSION_HANDLER = new SshSessionPool.Handler<Session>() {
+        @Override
+        public boolean isAlive(Session session) {
+            if (!session.isConnected()) {
+                return false;
+            }
+            // A keep-alive message is never answered, only opening a channel shows the server is still there
+            long start = System.nanoTime();
+            Channel probe = null;
+            try {
+                probe = session.openChannel("session");
+                probe.connect(LIVENESS_TIMEOUT);
+                return true;
+            } catch (Exception e) {
+                // A refused channel, e.g. past the session limit of the server, came back in time and is an answer too
+                return session.isConnected()
+                        && System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(LIVENESS_TIMEOUT);
+            } finally {
+                Optional.ofNullable(probe).ifPresent(Channel::disconnect);
+            }
+        }
+
+        @Override
+        public void close(Session session) {
+            session.disconnect();
+        }
+    };
+
+    private String groupName;
     private String ip;
     private int port;
     private String username;
     private String password;
+    private int maxChannels = ServerGroup.DEFAULT_MAX_CHANNELS;
+    private int sftpWindow = PipelinedSftpUploader.DEFAULT_WINDOW;
+    private CompressionMode compression = CompressionMode.OFF;
+    private int keepAliveInterval = ServerGroup.DEFAULT_KEEP_ALIVE_INTERVAL;
+    private int connectRetries = ReconnectPolicy.DEFAULT_RETRIES;
+    private CompressionAdvisor compressionAdvisor;
+    private SshSessionPool<Session> sessionPool;
 
     public DefaultSshClient(String ip, int port, String username, String password) {
         this.ip = ip;
@@ -38,9 +133,15 @@ public class DefaultSshClient extends AbstractSshClient {
     }
 
     public DefaultSshClient(ServerGroup serverGroup, String ip) {
+        this.groupName = serverGroup.getGroupName();
         this.port = serverGroup.getPort();
         this.username = serverGroup.getUsername();
         this.password = serverGroup.getPassword();
+        this.maxChannels = serverGroup.getMaxChannels();
+        this.sftpWindow = serverGroup.getSftpWindow();
+        this.compression = serverGroup.getCompression();
+        this.keepAliveInterval = serverGroup.getKeepAliveInterval();
+        this.connectRetries = serverGroup.getConnectRetries();
         this.ip = ip;
     }
 
@@ -53,21 +154,15 @@ public class DefaultSshClient extends AbstractSshClient {
     }
 
     public Session createSession(LoggerDecorator logger) {
-        JSch jsch = new JSch();
+        return createSession(logger, isCompressionWanted());
+    }
+
+    public Session createSession(LoggerDecorator logger, boolean compressed) {
         try {
-            Session session = jsch.getSession(username, ip, port);
-            session.setPassword(password);
-
-            UserInfo ui = new GsshUserInfo(password);
-            session.setUserInfo(ui);
-
-            Properties config = new Properties();
-            config.put("StrictHostKeyChecking", "no");
-            session.setConfig(config);
-            session.setDaemonThread(false);
-            session.connect();
-            logger.log("Created ssh session ip=[%s],port=[%d],username=[%s],password=[*******]",
-                    ip, port, username);
+            Session session = new ReconnectPolicy(connectRetries).connect(logger, getSessionKey(),
+                    () -> connectSession(compressed));
+            logger.log("Created ssh session ip=[%s],port=[%d],username=[%s],password=[*******],compressed=[%b]",
+                    ip, port, username, compressed);
             return session;
         } catch (Exception e) {
             logger.log(e, "Failed to create ssh session ip=[%s],port=[%d],username=[%s],password=[*******]",
@@ -76,60 +171,414 @@ public class DefaultSshClient extends AbstractSshClient {
         }
     }
 
+    private Session connectSession(boolean compressed) throws JSchException {
+        JSch jsch = new JSch();
+        Session session = jsch.getSession(username, ip, port);
+        session.setPassword(password);
+
+        UserInfo ui = new GsshUserInfo(password);
+        session.setUserInfo(ui);
+
+        Properties config = new Properties();
+        config.put("StrictHostKeyChecking", "no");
+        if (compressed) {
+            config.put("compression.s2c", COMPRESSION_ALGORITHMS);
+            config.put("compression.c2s", COMPRESSION_ALGORITHMS);
+        }
+        session.setConfig(config);
+        session.setDaemonThread(false);
+        // JSch sends the keep-alives itself and drops the session after three unanswered ones
+        session.setServerAliveInterval((int) TimeUnit.SECONDS.toMillis(keepAliveInterval));
+        session.setServerAliveCountMax(3);
+        session.connect();
+        return session;
+    }
+
+    /**
+     * Borrows a session from the session pool, or creates a dedicated one when this client is not pooled.
+     * The returned lease has to be closed once the operation is done.
+     */
+    public SshSessionPool.Lease<Session> borrowSession(LoggerDecorator logger) {
+        return borrowSession(logger, 1);
+    }
+
+    /**
+     * Reserves {@code channels} channels on one pooled session. The session is shared with other operations
+     * against the same host until {@link #getMaxChannels()} channels are open on it.
+     */
+    public SshSessionPool.Lease<Session> borrowSession(LoggerDecorator logger, int channels) {
+        boolean compressed = isCompressionWanted();
+        if (sessionPool == null) {
+            return SshSessionPool.detached(createSession(logger, compressed), SESSION_HANDLER);
+        }
+        try {
+            return sessionPool.borrow(getSessionKey().withCompression(compressed),
+                    () -> createSession(logger, compressed), Math.min(channels, maxChannels), maxChannels);
+        } catch (GsshPluginException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.log(e, "Failed to borrow ssh session for %s", getSessionKey());
+            throw new GsshPluginException(e);
+        }
+    }
+
+    /**
+     * Opens and authenticates a pooled session ahead of the first operation, unless the pool already holds one
+     * which can be shared.
+     */
+    public void prewarmSession(LoggerDecorator logger) {
+        if (sessionPool != null) {
+            borrowSession(logger).close();
+        }
+    }
+
+    /**
+     * Opens the pooled connections the given kinds of operation will use, see {@link #prewarmSession}.
+     * This client runs commands and transfers over the same session.
+     */
+    public void prewarm(LoggerDecorator logger, boolean commands, boolean transfers) throws Exception {
+        if (commands || transfers) {
+            prewarmSession(logger);
+        }
+    }
+
+    /**
+     * Opens up to {@code channels} exec and SFTP channels side by side on one authenticated connection.
+     * The number of channels is capped by the channel limit of the server group.
+     */
+    public MultiplexedSession openMultiplexedSession(LoggerDecorator logger, int channels) {
+        return new MultiplexedSession(borrowSession(logger, Math.max(1, channels)));
+    }
+
+    public SessionKey getSessionKey() {
+        return new SessionKey(groupName, ip, port, username);
+    }
+
+    /**
+     * Tells whether the next connection should be compressed, in automatic mode as advised by the measured
+     * throughput of earlier transfers.
+     */
+    protected boolean isCompressionWanted() {
+        switch (compression) {
+            case ON:
+                return true;
+            case AUTO:
+                return compressionAdvisor != null && compressionAdvisor.shouldCompress(getSessionKey());
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Feeds the throughput of a finished transfer to the compression advisor.
+     */
+    private void recordThroughput(SshSessionPool.Lease<Session> session, GsshProgressMonitor monitor) {
+        if (compressionAdvisor != null && session.getKey() != null) {
+            compressionAdvisor.record(session.getKey(), monitor.getTransferred(), monitor.getMillis());
+        }
+    }
+
     @Override
     public int uploadFile(LoggerDecorator logger, String fileName, InputStream fileContent, String serverLocation) {
-        Session session = null;
+        SshSessionPool.Lease<Session> session = null;
         ChannelSftp sftp = null;
-        OutputStream out = null;
         try {
-            session = createSession(logger);
-            Channel channel = session.openChannel("sftp");
+            session = borrowSession(logger);
+            Channel channel = session.get().openChannel("sftp");
             channel.setOutputStream(logger.outputStream(), true);
             channel.setExtOutputStream(logger.outputStream(), true);
             channel.connect();
-            Thread.sleep(2000);
             sftp = (ChannelSftp) channel;
             sftp.setFilenameEncoding(StandardCharsets.UTF_8.displayName());
             prepareUpload(sftp, serverLocation, false);
             sftp.cd(serverLocation);
-            out = sftp.put(fileName, 777);
-            Thread.sleep(2000);
-            byte[] buffer = new byte[2048];
-            int n = -1;
-            while ((n = fileContent.read(buffer, 0, 2048)) != -1) {
-                out.write(buffer, 0, n);
-            }
-            out.flush();
-            logger.log("Uploaded file [%s] to remote [%s]", fileName, serverLocation);
+            GsshProgressMonitor monitor = new PipelinedSftpUploader(sftpWindow)
+                    .upload(logger, sftp, fileContent, fileName, ChannelSftp.OVERWRITE);
+            logger.log("Uploaded file [%s] to remote [%s] at %.2f MB/s",
+                    fileName, serverLocation, monitor.getMegabytesPerSecond());
+            recordThroughput(session, monitor);
             return STATUS_SUCCESS;
         } catch (Exception e) {
             logger.log(e, "Failed to upload file: %s", e.getMessage());
+            invalidateIfDropped(session);
             throw new GsshPluginException(e);
         } finally {
             if (sftp != null) {
                 logger.log("SFTP exit status is " + sftp.getExitStatus());
             }
-            Optional.ofNullable(out).ifPresent(outputStream -> {
+            Optional.ofNullable(sftp).ifPresent(ChannelSftp::disconnect);
+            Optional.ofNullable(session).ifPresent(SshSessionPool.Lease::close);
+        }
+    }
+
+    @Override
+    public int resumeUpload(LoggerDecorator logger, String fileName, File file, String serverLocation) {
+        return resumeUpload(logger, fileName, new FilePath(file), serverLocation);
+    }
+
+    @Override
+    public int resumeUpload(LoggerDecorator logger, String fileName, FilePath file, String serverLocation) {
+        try (MultiplexedSession session = openMultiplexedSession(logger, 2)) {
+            ChannelSftp sftp = session.openSftp();
+            String remoteFile = serverLocation + "/" + fileName;
+            long offset = exists(sftp, remoteFile) ? sftp.stat(remoteFile).getSize() : 0;
+            long length = file.length();
+            prepareUpload(sftp, serverLocation, false);
+            sftp.cd(serverLocation);
+            if (offset <= length) {
+                logger.log("Resuming upload of [%s] to [%s] at byte %d of %d", file, remoteFile, offset, length);
+                // Only the part the server does not have yet is read, wherever the file lives
+                try (InputStream in = openStream(file, offset)) {
+                    new PipelinedSftpUploader(sftpWindow).upload(logger, sftp, in, fileName, ChannelSftp.APPEND);
+                }
                 try {
-                    outputStream.close();
-                } catch (IOException e) {
-                    // ignored
+                    verify(logger, session, sftp, remoteFile, file);
+                    return STATUS_SUCCESS;
+                } catch (TransferVerificationException e) {
+                    logger.log("%s, uploading the whole file again", e.getMessage());
                 }
-            });
-            Optional.ofNullable(sftp).ifPresent(ChannelSftp::disconnect);
-            Optional.ofNullable(session).ifPresent(Session::disconnect);
+            } else {
+                logger.log("Remote file [%s] is larger than [%s], uploading the whole file again", remoteFile, file);
+            }
+            try (InputStream in = openStream(file, 0)) {
+                new PipelinedSftpUploader(sftpWindow).upload(logger, sftp, in, fileName, ChannelSftp.OVERWRITE);
+            }
+            verify(logger, session, sftp, remoteFile, file);
+            return STATUS_SUCCESS;
+        } catch (Exception e) {
+            logger.log(e, "Failed to resume upload: %s", e.getMessage());
+            throw new GsshPluginException(e);
+        }
+    }
+
+    @Override
+    public int resumeDownload(LoggerDecorator logger, String remoteFile, FilePath localFile) {
+        try {
+            if (localFile.isRemote() || !localFile.exists()) {
+                // Files on an agent cannot be appended to through FilePath
+                logger.log("Cannot resume into %s, downloading it again", localFile);
+                return downloadFile(logger, remoteFile, localFile);
+            }
+        } catch (Exception e) {
+            throw new GsshPluginException(e);
+        }
+        try (MultiplexedSession session = openMultiplexedSession(logger, 2)) {
+            ChannelSftp sftp = session.openSftp();
+            File file = new File(localFile.getRemote());
+            long offset = file.length();
+            long length = sftp.stat(remoteFile).getSize();
+            if (offset <= length) {
+                logger.log("Resuming download of [%s] to [%s] at byte %d of %d", remoteFile, file, offset, length);
+                download(logger, sftp, remoteFile, file, offset);
+                try {
+                    verify(logger, session, sftp, remoteFile, localFile);
+                    return STATUS_SUCCESS;
+                } catch (TransferVerificationException e) {
+                    logger.log("%s, downloading the whole file again", e.getMessage());
+                }
+            } else {
+                logger.log("Local file [%s] is larger than [%s], downloading the whole file again", file, remoteFile);
+            }
+            download(logger, sftp, remoteFile, file, 0);
+            verify(logger, session, sftp, remoteFile, localFile);
+            return STATUS_SUCCESS;
+        } catch (Exception e) {
+            logger.log(e, "Failed to resume download: %s", e.getMessage());
+            throw new GsshPluginException(e);
+        }
+    }
+
+    /**
+     * Appends the remote file from {@code offset} to the local file, or replaces the local file from offset 0.
+     */
+    private static void download(LoggerDecorator logger, ChannelSftp sftp, String remoteFile, File file, long offset)
+            throws Exception {
+        GsshProgressMonitor monitor = new GsshProgressMonitor(logger);
+        try (InputStream in = sftp.get(remoteFile, monitor, offset);
+             OutputStream out = new FileOutputStream(file, offset > 0)) {
+            byte[] buffer = new byte[PipelinedSftpUploader.BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Checks that a resumed transfer produced an identical copy, comparing sizes and MD5 checksums.
+     */
+    private void verify(LoggerDecorator logger, MultiplexedSession session, ChannelSftp sftp, String remoteFile,
+                        FilePath localFile) throws Exception {
+        long remoteSize = sftp.stat(remoteFile).getSize();
+        if (remoteSize != localFile.length()) {
+            throw new TransferVerificationException("Size of " + remoteFile + " is " + remoteSize + " bytes, "
+                    + localFile.length() + " bytes expected");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int status = session.exec("md5sum -- " + shellQuote(remoteFile), out, logger.outputStream());
+        String remoteDigest = out.toString(StandardCharsets.UTF_8.name()).split(" ", 2)[0].trim();
+        if (status != STATUS_SUCCESS || remoteDigest.isEmpty()) {
+            logger.log("Cannot compute checksum of %s on the server, verified its size only", remoteFile);
+        } else if (!remoteDigest.equalsIgnoreCase(localFile.digest())) {
+            throw new TransferVerificationException("Checksum of " + remoteFile + " does not match the local file");
+        } else {
+            logger.log("Verified size and checksum of %s", remoteFile);
+        }
+    }
+
+    /**
+     * Drops a pooled session whose connection broke during the operation.
+     */
+    private static void invalidateIfDropped(SshSessionPool.Lease<Session> session) {
+        if (session != null && !session.get().isConnected()) {
+            session.invalidate();
+        }
+    }
+
+    /**
+     * Uploads the script only when the host does not have it yet. Recently seen scripts are not checked again,
+     * so repeated runs of the same script cost a single exec.
+     */
+    @Override
+    protected boolean uploadScript(LoggerDecorator logger, String scriptName, String script, boolean verify) {
+        String hostKey = getSessionKey().withCompression(false).toString();
+        String cacheKey = hostKey + "/" + scriptName;
+        if (verify) {
+            CACHED_SCRIPTS.remove(cacheKey);
+        } else {
+            Long seen = CACHED_SCRIPTS.get(cacheKey);
+            if (seen != null && System.currentTimeMillis() - seen < SCRIPT_CACHE_TTL) {
+                logger.log("Script %s is cached on the server", scriptName);
+                return false;
+            }
+        }
+        String target = SCRIPT_CACHE_PATH + "/" + scriptName;
+        boolean uploaded = false;
+        try (SshSessionPool.Lease<Session> session = borrowSession(logger)) {
+            ChannelSftp sftp = (ChannelSftp) session.get().openChannel("sftp");
+            try {
+                sftp.connect();
+                if (exists(sftp, target)) {
+                    logger.log("Script %s is cached on the server", scriptName);
+                } else {
+                    mkdirs(sftp, SCRIPT_CACHE_PATH);
+                    // Concurrent builds may upload the same script, only a complete file is ever renamed in place
+                    String part = target + "." + UUID.randomUUID() + ".part";
+                    sftp.put(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)), part);
+                    try {
+                        sftp.rename(part, target);
+                    } catch (SftpException e) {
+                        sftp.rm(part);
+                        if (!exists(sftp, target)) {
+                            throw e;
+                        }
+                    }
+                    uploaded = true;
+                    logger.log("Uploaded script %s to the script cache", scriptName);
+                    pruneScripts(logger, sftp, hostKey);
+                }
+            } finally {
+                sftp.disconnect();
+            }
+            CACHED_SCRIPTS.put(cacheKey, System.currentTimeMillis());
+            return uploaded;
+        } catch (GsshPluginException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.log(e, "Failed to upload script: %s", e.getMessage());
+            throw new GsshPluginException(e);
+        }
+    }
+
+    /**
+     * Removes scripts, and uploads left behind, which have not been used for {@link #SCRIPT_CACHE_RETENTION}.
+     * Running a script touches it, so only scripts no build runs anymore go away. The cache of a host is looked
+     * through at most every {@link #SCRIPT_CACHE_PRUNE_INTERVAL}, and failures only cost a log line.
+     */
+    private static void pruneScripts(LoggerDecorator logger, ChannelSftp sftp, String hostKey) {
+        long now = System.currentTimeMillis();
+        synchronized (PRUNED_HOSTS) {
+            Long pruned = PRUNED_HOSTS.get(hostKey);
+            if (pruned != null && now - pruned < SCRIPT_CACHE_PRUNE_INTERVAL) {
+                return;
+            }
+            PRUNED_HOSTS.put(hostKey, now);
+        }
+        long oldest = (now - SCRIPT_CACHE_RETENTION) / 1000;
+        int removed = 0;
+        try {
+            for (Object item : sftp.ls(SCRIPT_CACHE_PATH)) {
+                ChannelSftp.LsEntry entry = (ChannelSftp.LsEntry) item;
+                SftpATTRS attrs = entry.getAttrs();
+                if (attrs.isDir() || (attrs.getMTime() & 0xFFFFFFFFL) >= oldest) {
+                    continue;
+                }
+                try {
+                    sftp.rm(SCRIPT_CACHE_PATH + "/" + entry.getFilename());
+                    removed++;
+                } catch (SftpException e) {
+                    // removed by a concurrent prune, or not ours to remove
+                }
+            }
+        } catch (SftpException e) {
+            logger.log("Failed to clean up the script cache: %s", e.getMessage());
+        }
+        if (removed > 0) {
+            logger.log("Removed %d unused scripts from the script cache", removed);
+        }
+    }
+
+    private static boolean exists(ChannelSftp sftp, String path) throws SftpException {
+        try {
+            sftp.stat(path);
+            return true;
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static void mkdirs(ChannelSftp sftp, String path) throws SftpException {
+        StringBuilder current = new StringBuilder();
+        for (String folder : path.split("/")) {
+            if (folder.isEmpty()) {
+                continue;
+            }
+            current.append('/').append(folder);
+            if (!exists(sftp, current.toString())) {
+                try {
+                    sftp.mkdir(current.toString());
+                } catch (SftpException e) {
+                    // created by a concurrent upload in the meantime
+                    if (!exists(sftp, current.toString())) {
+                        throw e;
+                    }
+                }
+            }
         }
     }
 
     @Override
     public int downloadFile(LoggerDecorator logger, String remoteFile, FilePath localFile) {
-        Session session = null;
+        return downloadFile(logger, remoteFile, localFile, 1);
+    }
+
+    @Override
+    public int downloadFile(LoggerDecorator logger, String remoteFile, FilePath localFile, int ranges) {
+        if (ranges > 1) {
+            if (!localFile.isRemote()) {
+                return downloadRanges(logger, remoteFile, localFile, ranges);
+            }
+            logger.log("Local file %s is not on this machine, downloading it sequentially", localFile);
+        }
+        SshSessionPool.Lease<Session> session = null;
         ChannelSftp sftp = null;
         try {
-            session = createSession(logger);
-            Channel channel = session.openChannel("sftp");
+            session = borrowSession(logger);
+            Channel channel = session.get().openChannel("sftp");
             channel.connect();
-            Thread.sleep(2000);
             sftp = (ChannelSftp) channel;
             sftp.setFilenameEncoding(StandardCharsets.UTF_8.displayName());
             if (localFile.exists()) {
@@ -138,20 +587,88 @@ public class DefaultSshClient extends AbstractSshClient {
             }
             localFile.touch(System.currentTimeMillis());
             logger.log("Created local file: %s", localFile);
-            SftpProgressMonitor progressMonitor = new GsshProgressMonitor(logger);
-            sftp.get(remoteFile, localFile.write(), progressMonitor);
+            GsshProgressMonitor progressMonitor = new GsshProgressMonitor(logger);
+            try (OutputStream out = localFile.write()) {
+                sftp.get(remoteFile, out, progressMonitor);
+            }
+            recordThroughput(session, progressMonitor);
             logger.log("Downloaded remote file [%s] to [%s]", remoteFile, localFile.toURI());
             logger.log("Total size of local file: %d", localFile.length());
             return SshClient.STATUS_SUCCESS;
         } catch (Exception e) {
             logger.log(e, "Failed to download file: %s", e.getMessage());
+            invalidateIfDropped(session);
             throw new GsshPluginException(e);
         } finally {
             if (sftp != null) {
                 logger.log("SFTP exit status is " + sftp.getExitStatus());
             }
             Optional.ofNullable(sftp).ifPresent(ChannelSftp::disconnect);
-            Optional.ofNullable(session).ifPresent(Session::disconnect);
+            Optional.ofNullable(session).ifPresent(SshSessionPool.Lease::close);
+        }
+    }
+
+    @Override
+    public int uploadDirectory(LoggerDecorator logger, File directory, String serverLocation, int workers) {
+        try (MultiplexedSession session = openMultiplexedSession(logger, workers)) {
+            new SftpDirectoryUploader(session, sftpWindow).upload(logger, directory, serverLocation);
+            return STATUS_SUCCESS;
+        } catch (Exception e) {
+            logger.log(e, "Failed to upload directory: %s", e.getMessage());
+            throw new GsshPluginException(e);
+        }
+    }
+
+    @Override
+    public int syncDirectory(LoggerDecorator logger, File directory, String serverLocation, int workers,
+                             boolean deleteRemoved) {
+        try (MultiplexedSession session = openMultiplexedSession(logger, workers)) {
+            new SftpDirectorySync(session, sftpWindow, deleteRemoved).sync(logger, directory, serverLocation);
+            return STATUS_SUCCESS;
+        } catch (Exception e) {
+            logger.log(e, "Failed to synchronize directory: %s", e.getMessage());
+            throw new GsshPluginException(e);
+        }
+    }
+
+    @Override
+    public int uploadDirectoryAsTar(LoggerDecorator logger, FilePath directory, String serverLocation,
+                                    boolean compress) {
+        try (MultiplexedSession session = openMultiplexedSession(logger, 1)) {
+            int status = new TarStreamTransfer(session).upload(logger, directory, serverLocation, compress);
+            logger.log("Remote tar exit status -->" + status);
+            return status;
+        } catch (Exception e) {
+            logger.log(e, "Failed to stream directory: %s", e.getMessage());
+            throw new GsshPluginException(e);
+        }
+    }
+
+    @Override
+    public int downloadDirectoryAsTar(LoggerDecorator logger, String remoteDirectory, FilePath localDirectory,
+                                      boolean compress) {
+        try (MultiplexedSession session = openMultiplexedSession(logger, 1)) {
+            int status = new TarStreamTransfer(session).download(logger, remoteDirectory, localDirectory, compress);
+            logger.log("Remote tar exit status -->" + status);
+            return status;
+        } catch (Exception e) {
+            logger.log(e, "Failed to stream directory: %s", e.getMessage());
+            throw new GsshPluginException(e);
+        }
+    }
+
+    private int downloadRanges(LoggerDecorator logger, String remoteFile, FilePath localFile, int ranges) {
+        try (MultiplexedSession session = openMultiplexedSession(logger, ranges)) {
+            FilePath parent = localFile.getParent();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            new RangedSftpDownloader(session).download(logger, remoteFile, new File(localFile.getRemote()), ranges);
+            logger.log("Downloaded remote file [%s] to [%s]", remoteFile, localFile.getRemote());
+            return SshClient.STATUS_SUCCESS;
+        } catch (Exception e) {
+            logger.log(e, "Failed to download file: %s", e.getMessage());
+            throw new GsshPluginException(e);
         }
     }
 
@@ -162,58 +679,80 @@ public class DefaultSshClient extends AbstractSshClient {
 
     @Override
     public int executeCommand(LoggerDecorator logger, String command) {
-        Session session = null;
+        SshSessionPool.Lease<Session> session = null;
         ChannelExec channel = null;
-        InputStream in = null;
         try {
             String wrapperCommand = wrapperInput(command);
             logger.log("Executing: %s", wrapperCommand);
-            session = createSession(logger);
-            channel = (ChannelExec) session.openChannel("exec");
-            channel.setOutputStream(logger.outputStream(), true);
-            channel.setExtOutputStream(logger.outputStream(), true);
+            session = borrowSession(logger);
+            channel = (ChannelExec) session.get().openChannel("exec");
             channel.setPty(Boolean.FALSE);
             channel.setCommand(wrapperCommand);
+            ExecOutputPump pump = new ExecOutputPump(channel, logger.outputStream(), logger.outputStream());
             channel.connect();
-            Thread.sleep(1000);
-            while (true) {
-                byte[] buffer = new byte[2048];
-                int len = -1;
-                in = channel.getInputStream();
-                while (-1 != (len = in.read(buffer))) {
-                    logger.outputStream().write(buffer, 0, len);
-                    logger.outputStream().flush();
-                }
-                if (channel.isEOF()) {
-                    break;
-                }
-                if (!channel.isConnected()) {
-                    break;
-                }
-                if (channel.isClosed()) {
-                    break;
-                }
-                Thread.sleep(1000);
-            }
-            int status = channel.getExitStatus();
+            int status = pump.pump();
             logger.log("Shell exit status code -->" + status);
             return status;
         } catch (Exception e) {
             logger.log(e, "Command execution exception");
             throw new GsshPluginException(e);
         } finally {
-            Optional.ofNullable(in).ifPresent(inputStream -> {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    logger.log(e, "Faield to close input stream");
-                }
-            });
             Optional.ofNullable(channel).ifPresent(Channel::disconnect);
-            Optional.ofNullable(session).ifPresent(Session::disconnect);
+            Optional.ofNullable(session).ifPresent(SshSessionPool.Lease::close);
+        }
+    }
+
+    @Override
+    public int executeScript(LoggerDecorator logger, String interpreter, String script) {
+        SshSessionPool.Lease<Session> session = null;
+        ChannelExec channel = null;
+        try {
+            logger.log("Streaming script to: %s", interpreter);
+            session = borrowSession(logger);
+            channel = (ChannelExec) session.get().openChannel("exec");
+            channel.setPty(Boolean.FALSE);
+            channel.setCommand(interpreter);
+            // The interpreter may print while it still reads, so the session thread copies its output
+            ExecOutputPump pump = ExecOutputPump.passive(channel, logger.outputStream(), logger.outputStream());
+            OutputStream stdin = channel.getOutputStream();
+            channel.connect();
+            try (OutputStream out = stdin) {
+                out.write(fixIEIssue(script).getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+            }
+            int status = pump.await();
+            logger.log("Script exit status code -->" + status);
+            return status;
+        } catch (Exception e) {
+            logger.log(e, "Script execution exception");
+            throw new GsshPluginException(e);
+        } finally {
+            Optional.ofNullable(channel).ifPresent(Channel::disconnect);
+            Optional.ofNullable(session).ifPresent(SshSessionPool.Lease::close);
         }
     }
 
+    /**
+     * Waits for the exit status, which the server sends right after the end of the command output.
+     * JSch does not signal its arrival, so it is checked with a short back-off instead of a fixed sleep.
+     */
+    protected static int awaitExitStatus(Channel channel) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + EXIT_STATUS_TIMEOUT;
+        long pause = 1;
+        while (channel.getExitStatus() == -1 && !channel.isClosed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(pause);
+            pause = Math.min(pause * 2, 50);
+        }
+        return channel.getExitStatus();
+    }
+
+    /**
+     * Quotes a value for a POSIX shell command line.
+     */
+    public static String shellQuote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
     protected String wrapperInput(String input) {
         String output = fixIEIssue(input);
         //		return SSH_PROFILE + output + SSH_BEY;
@@ -228,10 +767,77 @@ public class DefaultSshClient extends AbstractSshClient {
      * @param input
      * @return
      */
-    private String fixIEIssue(String input) {
+    protected String fixIEIssue(String input) {
         return StringEscapeUtils.unescapeHtml(input);
     }
 
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public void setGroupName(String groupName) {
+        this.groupName = groupName;
+    }
+
+    public int getMaxChannels() {
+        return maxChannels;
+    }
+
+    public void setMaxChannels(int maxChannels) {
+        this.maxChannels = Math.max(1, maxChannels);
+    }
+
+    public int getSftpWindow() {
+        return sftpWindow;
+    }
+
+    public void setSftpWindow(int sftpWindow) {
+        this.sftpWindow = sftpWindow;
+    }
+
+    public CompressionMode getCompression() {
+        return compression;
+    }
+
+    public void setCompression(CompressionMode compression) {
+        this.compression = compression == null ? CompressionMode.OFF : compression;
+    }
+
+    /**
+     * Seconds between keep-alive messages on open connections.
+     */
+    public int getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+
+    public void setKeepAliveInterval(int keepAliveInterval) {
+        this.keepAliveInterval = Math.max(1, keepAliveInterval);
+    }
+
+    public int getConnectRetries() {
+        return connectRetries;
+    }
+
+    public void setConnectRetries(int connectRetries) {
+        this.connectRetries = Math.max(0, connectRetries);
+    }
+
+    public CompressionAdvisor getCompressionAdvisor() {
+        return compressionAdvisor;
+    }
+
+    public void setCompressionAdvisor(CompressionAdvisor compressionAdvisor) {
+        this.compressionAdvisor = compressionAdvisor;
+    }
+
+    public SshSessionPool<Session> getSessionPool() {
+        return sessionPool;
+    }
+
+    public void setSessionPool(SshSessionPool<Session> sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
     public String getIp() {
         return ip;
     }
@@ -0,0 +1,153 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.ChannelExec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the output of a JSch exec channel. Standard output is read on the calling thread with a single
+ * buffer that is reused for every chunk, blocking until data arrives; standard error is handed by the
+ * session thread straight to its own sink, so a chatty stderr never stalls stdout. {@link #pump()} returns
+ * as soon as the output has ended and the exit status has arrived.
+ * <p>
+ * Callers which write the stdin of the command themselves use {@link #passive} instead: both streams are then
+ * copied by the session thread, and {@link #await()} only waits for their end, so no second thread is needed
+ * to drain the output while the input is written.
+ * <p>
+ * The pump has to be created before the channel is connected, otherwise early output is lost.
+ */
+public class ExecOutputPump {
+    public static final int BUFFER_SIZE = 32 * 1024;
+
+    /**
+     * How often {@link #await()} checks the channel while waiting for the end of the output.
+     */
+    static final long CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    private final ChannelExec channel;
+    private final InputStream stdout;
+    private final CountingStream stdoutSink;
+    private final CountingStream stderrSink;
+    private final CountDownLatch ended = new CountDownLatch(1);
+    private final byte[] buffer;
+
+    public ExecOutputPump(ChannelExec channel, OutputStream stdoutSink, OutputStream stderrSink) throws IOException {
+        this(channel, stdoutSink, stderrSink, false);
+    }
+
+    private ExecOutputPump(ChannelExec channel, OutputStream stdoutSink, OutputStream stderrSink, boolean passive)
+            throws IOException {
+        this.channel = channel;
+        this.stdoutSink = new CountingStream(stdoutSink, null);
+        this.stderrSink = new CountingStream(stderrSink, null);
+        if (passive) {
+            // JSch closes the stream at the end of the output, or when the session goes down
+            this.stdout = null;
+            this.buffer = null;
+            channel.setOutputStream(new CountingStream(this.stdoutSink, ended), false);
+        } else {
+            this.stdout = channel.getInputStream();
+            this.buffer = new byte[BUFFER_SIZE];
+        }
+        channel.setExtOutputStream(this.stderrSink, true);
+    }
+
+    /**
+     * Creates a pump whose output is copied by the session thread of JSch, see {@link #await()}.
+     */
+    public static ExecOutputPump passive(ChannelExec channel, OutputStream stdoutSink, OutputStream stderrSink)
+            throws IOException {
+        return new ExecOutputPump(channel, stdoutSink, stderrSink, true);
+    }
+
+    /**
+     * Copies stdout until the remote side closes it and returns the exit status of the command.
+     */
+    public int pump() throws IOException, InterruptedException {
+        if (stdout == null) {
+            return await();
+        }
+        try {
+            int len;
+            while ((len = stdout.read(buffer)) != -1) {
+                stdoutSink.write(buffer, 0, len);
+                // Flush once the burst is drained rather than after every chunk
+                if (stdout.available() == 0) {
+                    stdoutSink.flush();
+                }
+            }
+            stdoutSink.flush();
+            return DefaultSshClient.awaitExitStatus(channel);
+        } finally {
+            stdout.close();
+            stderrSink.flush();
+        }
+    }
+
+    /**
+     * Waits until the output of a {@link #passive} pump has ended and returns the exit status of the command.
+     * The channel is checked every few seconds, so a channel closed without a proper end of its output does not
+     * keep the caller waiting.
+     */
+    public int await() throws IOException, InterruptedException {
+        while (!ended.await(CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (channel.isClosed()) {
+                break;
+            }
+        }
+        stdoutSink.flush();
+        stderrSink.flush();
+        return DefaultSshClient.awaitExitStatus(channel);
+    }
+
+    public long getStdoutBytes() {
+        return stdoutSink.count;
+    }
+
+    public long getStderrBytes() {
+        return stderrSink.count;
+    }
+
+    private static final class CountingStream extends OutputStream {
+        private final OutputStream delegate;
+        private final CountDownLatch closed;
+        private volatile long count;
+
+        private CountingStream(OutputStream delegate, CountDownLatch closed) {
+            this.delegate = delegate;
+            this.closed = closed;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        /**
+         * Only signals the end of the output, the sink belongs to the caller.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed != null) {
+                delegate.flush();
+                closed.countDown();
+            }
+        }
+    }
+}
@@ -3,8 +3,20 @@ package jenkins.plugins.ssh2easy.gssh.client;
 import com.jcraft.jsch.SftpProgressMonitor;
 import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
 
+import java.util.concurrent.TimeUnit;
+
 public class GsshProgressMonitor implements SftpProgressMonitor {
+    /**
+     * Minimal time between two progress lines, JSch reports every single packet.
+     */
+    public static final long REPORT_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
     private final LoggerDecorator logger;
+    private long max;
+    private long transferred;
+    private long startTime;
+    private long endTime;
+    private long lastReport;
 
     public GsshProgressMonitor(LoggerDecorator logger) {
         this.logger = logger;
@@ -14,16 +26,45 @@ public class GsshProgressMonitor implements SftpProgressMonitor {
     public void init(int op, String src, String dest, long max) {
         String operation = op == SftpProgressMonitor.PUT ? "PUT" : "GET";
         logger.log("Starting %s from %s to %s [%d]", operation, src, dest, max);
+        this.max = max;
+        this.transferred = 0;
+        this.startTime = System.currentTimeMillis();
+        this.endTime = 0;
+        this.lastReport = startTime;
     }
 
     @Override
     public boolean count(long count) {
-        logger.log("=====> Loaded %d bytes", count);
+        transferred += count;
+        long now = System.currentTimeMillis();
+        if (now - lastReport >= REPORT_INTERVAL) {
+            lastReport = now;
+            if (max > 0) {
+                logger.log("=====> Loaded %d of %d bytes (%d%%) at %.2f MB/s",
+                        transferred, max, transferred * 100 / max, getMegabytesPerSecond());
+            } else {
+                logger.log("=====> Loaded %d bytes at %.2f MB/s", transferred, getMegabytesPerSecond());
+            }
+        }
         return true;
     }
 
     @Override
     public void end() {
-        logger.log("Finished processing SFTP transfer");
+        endTime = System.currentTimeMillis();
+        logger.log("Finished processing SFTP transfer: %d bytes in %.3f s, %.2f MB/s",
+                transferred, getMillis() / 1000.0, getMegabytesPerSecond());
+    }
+
+    public long getTransferred() {
+        return transferred;
+    }
+
+    public long getMillis() {
+        return (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    public double getMegabytesPerSecond() {
+        return transferred / 1048576.0 / (Math.max(1, getMillis()) / 1000.0);
     }
 }
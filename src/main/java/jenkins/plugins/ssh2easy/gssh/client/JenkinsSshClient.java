@@ -13,13 +13,35 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.Optional;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class JenkinsSshClient extends DefaultSshClient {
     private static final Logger LOG = Logger.getLogger(JenkinsSshClient.class);
 
+    public static final SshSessionPool.Handler<Connection> CONNECTION_HANDLER =
+            new SshSessionPool.Handler<Connection>() {
+                @Override
+                public boolean isAlive(Connection connection) {
+                    if (!connection.isAuthenticationComplete()) {
+                        return false;
+                    }
+                    try {
+                        connection.sendIgnorePacket();
+                        return true;
+                    } catch (IOException e) {
+                        return false;
+                    }
+                }
+
+                @Override
+                public void close(Connection connection) {
+                    connection.close();
+                }
+            };
+
+    private SshSessionPool<Connection> connectionPool;
+
     public JenkinsSshClient(String ip, int port, String username, String password) {
         super(ip, port, username, password);
     }
@@ -36,11 +58,15 @@ public class JenkinsSshClient extends DefaultSshClient {
         return new JenkinsSshClient(group, ip);
     }
 
-    public Connection getConnection() throws IOException {
-        Connection conn = new Connection(this.getIp(), this.getPort());
-        conn.connect();
+    public Connection getConnection() throws Exception {
+        Connection conn = new ReconnectPolicy(getConnectRetries()).connect(null, getSessionKey(), () -> {
+            Connection connection = new Connection(this.getIp(), this.getPort());
+            connection.connect();
+            return connection;
+        });
         boolean isAuthenticated = conn.authenticateWithPassword(getUsername(), getPassword());
         if (!isAuthenticated) {
+            conn.close();
             throw new IOException("Authentication failed.");
         }
         LOG.info("create ssh session success with ip=[" + getIp()
@@ -49,11 +75,66 @@ public class JenkinsSshClient extends DefaultSshClient {
         return conn;
     }
 
+    /**
+     * Sends keep-alive messages over the connection while a command runs, so that a command producing no
+     * output for a long time does not get its connection dropped by a NAT gateway.
+     */
+    private ScheduledFuture<?> startKeepAlive(Connection connection) {
+        long interval = getKeepAliveInterval();
+        return SshExecutors.scheduler().scheduleWithFixedDelay(() -> {
+            try {
+                connection.sendIgnorePacket();
+            } catch (IOException e) {
+                ConnectionMetrics.get().keepAliveFailed();
+                LOG.warn("Keep-alive failed for " + getSessionKey() + ": " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Borrows a connection from the connection pool, or opens a dedicated one when this client is not pooled.
+     * The returned lease has to be closed once the operation is done.
+     */
+    public SshSessionPool.Lease<Connection> borrowConnection() throws Exception {
+        if (connectionPool == null) {
+            return SshSessionPool.detached(getConnection(), CONNECTION_HANDLER);
+        }
+        return connectionPool.borrow(getSessionKey(), this::getConnection, 1, getMaxChannels());
+    }
+
+    /**
+     * Opens and authenticates a pooled connection ahead of the first command, unless the pool already holds one
+     * which can be shared.
+     */
+    public void prewarmConnection() throws Exception {
+        if (connectionPool != null) {
+            borrowConnection().close();
+        }
+    }
+
+    @Override
+    public void prewarm(LoggerDecorator logger, boolean commands, boolean transfers) throws Exception {
+        if (commands) {
+            prewarmConnection();
+        }
+        if (transfers) {
+            prewarmSession(logger);
+        }
+    }
+
+    public SshSessionPool<Connection> getConnectionPool() {
+        return connectionPool;
+    }
+
+    public void setConnectionPool(SshSessionPool<Connection> connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
     @Override
     public int executeCommand(LoggerDecorator logger, String command) {
-        Connection conn;
+        SshSessionPool.Lease<Connection> conn;
         try {
-            conn = getConnection();
+            conn = borrowConnection();
         } catch (Exception e) {
             logger.log(e, "Failed to create ssh session ip=[%s],port=[%d],username=[%s],password=[*******]",
                     getIp(), getPort(), getUsername());
@@ -61,12 +142,13 @@ public class JenkinsSshClient extends DefaultSshClient {
         }
         Session session = null;
         String wrappedCommand = wrapperInput(command);
+        ScheduledFuture<?> keepAlive = startKeepAlive(conn.get());
         try {
-            session = conn.openSession();
+            session = conn.get().openSession();
             session.requestPTY("dumb");
             session.startShell();
-            ExecutorService exec = Executors.newSingleThreadExecutor();
-            Future<Boolean> task = exec.submit(new OutputTask(session, logger));
+            // Trilead buffers incoming output up to the channel window without blocking its receiver thread,
+            // so the command can be written first and the output read afterwards on this same thread
             PrintWriter out = new PrintWriter(session.getStdin());
             String[] commands = wrappedCommand.split("\n");
             for (String cmd : commands) {
@@ -75,9 +157,10 @@ public class JenkinsSshClient extends DefaultSshClient {
                 out.println(cmd);
             }
             out.close();
-            task.get();
-            exec.shutdown();
-            int status = session.getExitStatus();
+            new OutputTask(session, logger).execute();
+            session.waitForCondition(ChannelCondition.EXIT_STATUS | ChannelCondition.CLOSED, EXIT_STATUS_TIMEOUT);
+            Integer exitStatus = session.getExitStatus();
+            int status = exitStatus == null ? STATUS_FAILED : exitStatus;
             logger.log("Command exit status -->" + status);
             return status;
         } catch (Exception e) {
@@ -85,8 +168,9 @@ public class JenkinsSshClient extends DefaultSshClient {
             logger.log(e, msg);
             throw new GsshPluginException(msg, e);
         } finally {
+            keepAlive.cancel(false);
             Optional.ofNullable(session).ifPresent(Session::close);
-            Optional.ofNullable(conn).ifPresent(Connection::close);
+            conn.close();
         }
     }
 
@@ -109,12 +193,14 @@ public class JenkinsSshClient extends DefaultSshClient {
                     int conditions = session.waitForCondition(
                             ChannelCondition.STDERR_DATA
                                     | ChannelCondition.STDOUT_DATA
+                                    | ChannelCondition.EOF
                                     | ChannelCondition.EXIT_STATUS, 0);
                     if ((conditions & ChannelCondition.TIMEOUT) != 0) {
                         logger.log("Wait timeout and exit now !");
                         break;
                     }
-                    if ((conditions & ChannelCondition.EXIT_STATUS) != 0) {
+                    if ((conditions & (ChannelCondition.STDOUT_DATA | ChannelCondition.STDERR_DATA)) == 0
+                            && (conditions & (ChannelCondition.EOF | ChannelCondition.EXIT_STATUS)) != 0) {
                         break;
                     }
                 }
@@ -141,7 +227,6 @@ public class JenkinsSshClient extends DefaultSshClient {
         }
 
         public Boolean call() throws Exception {
-            Thread.sleep(2000);
             return execute();
         }
     }
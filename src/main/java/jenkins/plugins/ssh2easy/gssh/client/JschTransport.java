@@ -0,0 +1,31 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import hudson.Extension;
+import jenkins.plugins.ssh2easy.gssh.GsshBuilderWrapper;
+import jenkins.plugins.ssh2easy.gssh.ServerGroup;
+
+/**
+ * Runs commands and transfers files over JSch, sharing one pooled session per host between both.
+ */
+@Extension
+public class JschTransport extends SshTransport {
+    public static final String ID = "jsch";
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "JSch";
+    }
+
+    @Override
+    public SshClient createClient(ServerGroup group, String ip) {
+        DefaultSshClient client = new DefaultSshClient(group, ip);
+        client.setSessionPool(GsshBuilderWrapper.DESCRIPTOR.getSessionPool());
+        client.setCompressionAdvisor(GsshBuilderWrapper.DESCRIPTOR.getCompressionAdvisor());
+        return client;
+    }
+}
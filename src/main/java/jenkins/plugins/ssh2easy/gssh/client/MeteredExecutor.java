@@ -0,0 +1,162 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor shared by all builds which counts what runs on it, so that thread usage of the plugin can be
+ * watched on a busy controller.
+ */
+public class MeteredExecutor {
+    private final String name;
+    private final ExecutorService delegate;
+    private final int maxThreads;
+    private final boolean virtual;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peakRunning = new AtomicInteger();
+
+    public MeteredExecutor(String name, ExecutorService delegate, int maxThreads, boolean virtual) {
+        this.name = name;
+        this.delegate = delegate;
+        this.maxThreads = maxThreads;
+        this.virtual = virtual;
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        submitted.incrementAndGet();
+        MeteredTask<T> metered = new MeteredTask<>(task);
+        try {
+            delegate.execute(metered);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+        return metered;
+    }
+
+    public Future<?> submit(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        delegate.shutdown();
+        if (!delegate.awaitTermination(timeout, unit)) {
+            delegate.shutdownNow();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Upper bound of platform threads, or {@code 0} when tasks run on virtual threads.
+     */
+    public int getMaxThreads() {
+        return virtual ? 0 : maxThreads;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Tasks cancelled before they started.
+     */
+    public long getCancelled() {
+        return cancelled.get();
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * Tasks accepted but not started yet because all threads are busy.
+     */
+    public long getQueued() {
+        return submitted.get() - rejected.get() - cancelled.get() - completed.get() - failed.get() - running.get();
+    }
+
+    public int getPeakRunning() {
+        return peakRunning.get();
+    }
+
+    /**
+     * Counts a task exactly once: as running when it starts, or as cancelled when it is cancelled before.
+     */
+    private final class MeteredTask<T> extends FutureTask<T> {
+        private final AtomicBoolean claimed;
+
+        MeteredTask(Callable<T> task) {
+            this(task, new AtomicBoolean());
+        }
+
+        private MeteredTask(Callable<T> task, AtomicBoolean claimed) {
+            super(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    // cancelled, and counted as such, before it got here
+                    return null;
+                }
+                peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    T result = task.call();
+                    completed.incrementAndGet();
+                    return result;
+                } catch (Exception | Error e) {
+                    failed.incrementAndGet();
+                    throw e;
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+            this.claimed = claimed;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && claimed.compareAndSet(false, true)) {
+                cancelled.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " [threads=" + (virtual ? "virtual" : String.valueOf(maxThreads))
+                + ",running=" + getRunning() + ",peak=" + getPeakRunning() + ",queued=" + getQueued()
+                + ",completed=" + getCompleted() + ",failed=" + getFailed() + ",cancelled=" + getCancelled()
+                + ",rejected=" + getRejected() + "]";
+    }
+}
@@ -0,0 +1,375 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.SftpProgressMonitor;
+import hudson.FilePath;
+import jenkins.plugins.ssh2easy.gssh.GsshPluginException;
+import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
+import jenkins.plugins.ssh2easy.gssh.ServerGroup;
+import org.apache.sshd.client.channel.ChannelExec;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.core.CoreModuleProperties;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.apache.sshd.sftp.client.SftpClientFactory;
+import org.apache.sshd.sftp.common.SftpConstants;
+import org.apache.sshd.sftp.common.SftpException;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs commands and single file transfers over Apache MINA SSHD. All connections share the NIO2 reactor of one
+ * MINA client, so a pooled connection does not hold a reader thread of its own the way JSch and Trilead
+ * connections do. Directory, resumed and ranged transfers and the script cache are built on JSch channels and
+ * are inherited from {@link DefaultSshClient}.
+ */
+public class MinaSshClient extends DefaultSshClient {
+
+    /**
+     * How long to wait for connect, authentication and channel open.
+     */
+    public static final long CONNECT_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    public static final SshSessionPool.Handler<ClientSession> CLIENT_SESSION_HANDLER =
+            new SshSessionPool.Handler<ClientSession>() {
+                @Override
+                public boolean isAlive(ClientSession session) {
+                    // MINA sends keep-alives itself and closes the session once they fail
+                    return session.isOpen() && session.isAuthenticated();
+                }
+
+                @Override
+                public void close(ClientSession session) {
+                    session.close(true);
+                }
+            };
+
+    private final org.apache.sshd.client.SshClient client;
+    private SshSessionPool<ClientSession> clientSessionPool;
+
+    public MinaSshClient(ServerGroup serverGroup, String ip,
+                         org.apache.sshd.client.SshClient client) {
+        super(serverGroup, ip);
+        this.client = client;
+    }
+
+    public ClientSession getClientSession() throws Exception {
+        ClientSession session = new ReconnectPolicy(getConnectRetries()).connect(null, getSessionKey(),
+                () -> client.connect(getUsername(), getIp(), getPort()).verify(CONNECT_TIMEOUT).getSession());
+        try {
+            session.addPasswordIdentity(getPassword());
+            CoreModuleProperties.HEARTBEAT_INTERVAL.set(session, Duration.ofSeconds(getKeepAliveInterval()));
+            session.auth().verify(CONNECT_TIMEOUT);
+        } catch (IOException e) {
+            session.close(true);
+            throw e;
+        }
+        return session;
+    }
+
+    /**
+     * Borrows a session from the MINA session pool, or opens a dedicated one when this client is not pooled.
+     * The returned lease has to be closed once the operation is done.
+     */
+    public SshSessionPool.Lease<ClientSession> borrowClientSession() throws Exception {
+        if (clientSessionPool == null) {
+            return SshSessionPool.detached(getClientSession(), CLIENT_SESSION_HANDLER);
+        }
+        return clientSessionPool.borrow(getSessionKey(), this::getClientSession, 1, getMaxChannels());
+    }
+
+    @Override
+    public void prewarm(LoggerDecorator logger, boolean commands, boolean transfers) throws Exception {
+        if (commands && clientSessionPool != null) {
+            borrowClientSession().close();
+        }
+        super.prewarm(logger, false, transfers);
+    }
+
+    public SshSessionPool<ClientSession> getClientSessionPool() {
+        return clientSessionPool;
+    }
+
+    public void setClientSessionPool(SshSessionPool<ClientSession> clientSessionPool) {
+        this.clientSessionPool = clientSessionPool;
+    }
+
+    @Override
+    public int uploadFile(LoggerDecorator logger, String fileName, InputStream fileContent, String serverLocation) {
+        SshSessionPool.Lease<ClientSession> session = null;
+        try {
+            session = borrowClientSession();
+            try (SftpClient sftp = SftpClientFactory.instance().createSftpClient(session.get())) {
+                mkdirs(sftp, serverLocation);
+                String target = serverLocation + "/" + fileName;
+                GsshProgressMonitor monitor = new GsshProgressMonitor(logger);
+                monitor.init(SftpProgressMonitor.PUT, fileName, target, -1);
+                // The stream keeps several write requests in flight
+                try (OutputStream out = sftp.write(target)) {
+                    copy(fileContent, out, monitor);
+                }
+                monitor.end();
+                logger.log("Uploaded file [%s] to remote [%s] at %.2f MB/s",
+                        fileName, serverLocation, monitor.getMegabytesPerSecond());
+            }
+            return STATUS_SUCCESS;
+        } catch (Exception e) {
+            logger.log(e, "Failed to upload file: %s", e.getMessage());
+            invalidateIfClosed(session);
+            throw new GsshPluginException(e);
+        } finally {
+            Optional.ofNullable(session).ifPresent(SshSessionPool.Lease::close);
+        }
+    }
+
+    @Override
+    public int downloadFile(LoggerDecorator logger, String remoteFile, FilePath localFile, int ranges) {
+        if (ranges > 1) {
+            return super.downloadFile(logger, remoteFile, localFile, ranges);
+        }
+        SshSessionPool.Lease<ClientSession> session = null;
+        try {
+            session = borrowClientSession();
+            try (SftpClient sftp = SftpClientFactory.instance().createSftpClient(session.get())) {
+                GsshProgressMonitor monitor = new GsshProgressMonitor(logger);
+                monitor.init(SftpProgressMonitor.GET, remoteFile, localFile.getRemote(),
+                        sftp.stat(remoteFile).getSize());
+                // Writing replaces an existing local file
+                try (InputStream in = sftp.read(remoteFile); OutputStream out = localFile.write()) {
+                    copy(in, out, monitor);
+                }
+                monitor.end();
+            }
+            logger.log("Downloaded remote file [%s] to [%s]", remoteFile, localFile.toURI());
+            logger.log("Total size of local file: %d", localFile.length());
+            return STATUS_SUCCESS;
+        } catch (Exception e) {
+            logger.log(e, "Failed to download file: %s", e.getMessage());
+            invalidateIfClosed(session);
+            throw new GsshPluginException(e);
+        } finally {
+            Optional.ofNullable(session).ifPresent(SshSessionPool.Lease::close);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, GsshProgressMonitor monitor) throws IOException {
+        byte[] buffer = new byte[ExecOutputPump.BUFFER_SIZE];
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            out.write(buffer, 0, len);
+            monitor.count(len);
+        }
+    }
+
+    /**
+     * Creates the directory and its missing parents, tolerating directories created concurrently.
+     */
+    private static void mkdirs(SftpClient sftp, String path) throws IOException {
+        StringBuilder current = new StringBuilder(path.startsWith("/") ? "" : ".");
+        for (String folder : path.split("/")) {
+            if (folder.isEmpty()) {
+                continue;
+            }
+            current.append('/').append(folder);
+            String dir = current.toString();
+            try {
+                if (sftp.stat(dir).isDirectory()) {
+                    continue;
+                }
+            } catch (SftpException e) {
+                if (e.getStatus() != SftpConstants.SSH_FX_NO_SUCH_FILE) {
+                    throw e;
+                }
+            }
+            try {
+                sftp.mkdir(dir);
+            } catch (SftpException e) {
+                if (!sftp.stat(dir).isDirectory()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops a pooled session which was closed during the operation.
+     */
+    private static void invalidateIfClosed(SshSessionPool.Lease<ClientSession> session) {
+        if (session != null && !session.get().isOpen()) {
+            session.invalidate();
+        }
+    }
+
+    @Override
+    public int executeCommand(LoggerDecorator logger, String command) {
+        int status = await(executeCommandAsync(logger, command));
+        logger.log("Shell exit status code -->" + status);
+        return status;
+    }
+
+    @Override
+    public CompletableFuture<SshResult> executeCommandAsync(LoggerDecorator logger, String command) {
+        String wrapperCommand = wrapperInput(command);
+        logger.log("Executing: %s", wrapperCommand);
+        return execAsync(logger, wrapperCommand, null);
+    }
+
+    /**
+     * Shells run as a command, as {@link #executeShell} does.
+     */
+    @Override
+    public CompletableFuture<SshResult> executeShellAsync(LoggerDecorator logger, String shell) {
+        return executeCommandAsync(logger, shell);
+    }
+
+    @Override
+    public int executeScript(LoggerDecorator logger, String interpreter, String script) {
+        int status = await(executeScriptAsync(logger, interpreter, script));
+        logger.log("Script exit status code -->" + status);
+        return status;
+    }
+
+    @Override
+    public CompletableFuture<SshResult> executeScriptAsync(LoggerDecorator logger, String interpreter,
+                                                           String script) {
+        logger.log("Streaming script to: %s", interpreter);
+        return execAsync(logger, interpreter, (fixIEIssue(script) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs a command on an exec channel, feeding it {@code stdin} if given. Only borrowing the session, which
+     * may connect, takes a helper thread; output is written to the build log and the future completed by the
+     * reactor.
+     */
+    private CompletableFuture<SshResult> execAsync(LoggerDecorator logger, String command, byte[] stdin) {
+        long start = System.currentTimeMillis();
+        CompletableFuture<SshResult> result = new CompletableFuture<>();
+        SshExecutors.helpers().submit(() -> {
+            SshSessionPool.Lease<ClientSession> session;
+            try {
+                session = borrowClientSession();
+            } catch (Exception e) {
+                logger.log(e, "Failed to create ssh session ip=[%s],port=[%d],username=[%s],password=[*******]",
+                        getIp(), getPort(), getUsername());
+                result.completeExceptionally(new GsshPluginException(e));
+                return;
+            }
+            try {
+                startExec(logger, session, command, stdin, start, result);
+            } catch (Exception e) {
+                session.close();
+                fail(logger, result, e);
+            }
+        });
+        return result;
+    }
+
+    private void startExec(LoggerDecorator logger, SshSessionPool.Lease<ClientSession> session, String command,
+                           byte[] stdin, long start, CompletableFuture<SshResult> result) throws IOException {
+        ChannelExec channel = session.get().createExecChannel(command);
+        UnclosableOutputStream out = new UnclosableOutputStream(logger.outputStream());
+        channel.setOut(out);
+        channel.setErr(out);
+        channel.addCloseFutureListener(closed -> {
+            if (session.get().isOpen()) {
+                session.close();
+            } else {
+                session.invalidate();
+            }
+            try {
+                out.flush();
+            } catch (IOException e) {
+                // The log is gone, the exit status is still worth reporting
+            }
+            Integer exitStatus = channel.getExitStatus();
+            result.complete(new SshResult(exitStatus == null ? STATUS_FAILED : exitStatus, out.getCount(),
+                    System.currentTimeMillis() - start));
+        });
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                channel.close(true);
+            }
+        });
+        channel.open().addListener(opened -> {
+            if (!opened.isOpened()) {
+                fail(logger, result, opened.getException());
+                channel.close(true);
+                return;
+            }
+            // Writing may wait for window space, which must not happen on a reactor thread
+            SshExecutors.helpers().submit(() -> {
+                try (OutputStream in = channel.getInvertedIn()) {
+                    if (stdin != null) {
+                        in.write(stdin);
+                    }
+                } catch (IOException e) {
+                    fail(logger, result, e);
+                    channel.close(true);
+                }
+            });
+        });
+    }
+
+    private static void fail(LoggerDecorator logger, CompletableFuture<SshResult> result, Throwable e) {
+        logger.log(e, "Command execution exception");
+        result.completeExceptionally(e instanceof GsshPluginException ? e : new GsshPluginException(e));
+    }
+
+    /**
+     * Waits for the exit status of an asynchronous command, closing its channel if the build is aborted.
+     */
+    private static int await(CompletableFuture<SshResult> future) {
+        try {
+            return future.get().getStatus();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new GsshPluginException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GsshPluginException) {
+                throw (GsshPluginException) e.getCause();
+            }
+            throw new GsshPluginException(e.getCause());
+        }
+    }
+
+    /**
+     * Counts the command output and keeps MINA from closing the build log when the channel closes.
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+        private final AtomicLong count = new AtomicLong();
+
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.addAndGet(len);
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
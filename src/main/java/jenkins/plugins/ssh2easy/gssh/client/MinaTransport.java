@@ -0,0 +1,74 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import hudson.Extension;
+import jenkins.plugins.ssh2easy.gssh.GsshBuilderWrapper;
+import jenkins.plugins.ssh2easy.gssh.ServerGroup;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.io.nio2.Nio2ServiceFactoryFactory;
+
+/**
+ * Runs commands and single file transfers over Apache MINA SSHD, directory and ranged transfers over JSch. One
+ * MINA client, started on first use and stopped with Jenkins, serves every group using this transport.
+ */
+@Extension
+public class MinaTransport extends SshTransport {
+    public static final String ID = "mina";
+
+    private final SshSessionPool<ClientSession> clientSessionPool =
+            new SshSessionPool<>(MinaSshClient.CLIENT_SESSION_HANDLER);
+    private org.apache.sshd.client.SshClient client;
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Apache MINA SSHD commands and file transfers, JSch directory transfers";
+    }
+
+    @Override
+    public SshClient createClient(ServerGroup group, String ip) {
+        MinaSshClient sshClient = new MinaSshClient(group, ip, getClient());
+        sshClient.setClientSessionPool(clientSessionPool);
+        sshClient.setSessionPool(GsshBuilderWrapper.DESCRIPTOR.getSessionPool());
+        sshClient.setCompressionAdvisor(GsshBuilderWrapper.DESCRIPTOR.getCompressionAdvisor());
+        return sshClient;
+    }
+
+    private synchronized org.apache.sshd.client.SshClient getClient() {
+        if (client == null) {
+            client = org.apache.sshd.client.SshClient.setUpDefaultClient();
+            client.setIoServiceFactoryFactory(new Nio2ServiceFactoryFactory());
+            // Host keys are not checked, matching StrictHostKeyChecking=no of the JSch sessions
+            client.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+            client.start();
+        }
+        return client;
+    }
+
+    @Override
+    public void evictIdle() {
+        clientSessionPool.evictIdle();
+    }
+
+    @Override
+    public void clear() {
+        clientSessionPool.clear();
+    }
+
+    /**
+     * Closes the pooled sessions and stops the client with its reactor threads. A later operation starts a new
+     * client.
+     */
+    @Override
+    public synchronized void stop() {
+        clientSessionPool.clear();
+        if (client != null) {
+            client.stop();
+            client = null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Several exec and SFTP channels opened side by side on one authenticated SSH connection. The channels are
+ * reserved in the session pool up front, so parallel operations against one host share a single socket.
+ * Closing this object disconnects every channel opened through it and returns the reservation.
+ */
+public class MultiplexedSession implements AutoCloseable {
+    private final SshSessionPool.Lease<Session> lease;
+    private final List<com.jcraft.jsch.Channel> channels = new ArrayList<>();
+
+    public MultiplexedSession(SshSessionPool.Lease<Session> lease) {
+        this.lease = lease;
+    }
+
+    public Session getSession() {
+        return lease.get();
+    }
+
+    /**
+     * Number of channels which may be open at the same time.
+     */
+    public int getCapacity() {
+        return lease.getChannels();
+    }
+
+    /**
+     * Opens an exec channel. It is not connected yet, so that the caller can set the command and streams first.
+     */
+    public ChannelExec openExec(String command) throws JSchException {
+        ChannelExec channel = (ChannelExec) open("exec");
+        channel.setPty(false);
+        channel.setCommand(command);
+        return channel;
+    }
+
+    /**
+     * Runs a command to its end, copying its output into the given streams.
+     *
+     * @return exit status of the command
+     */
+    public int exec(String command, OutputStream stdout, OutputStream stderr) throws Exception {
+        ChannelExec exec = openExec(command);
+        try {
+            ExecOutputPump pump = new ExecOutputPump(exec, stdout, stderr);
+            exec.connect();
+            return pump.pump();
+        } finally {
+            exec.disconnect();
+        }
+    }
+
+    /**
+     * Opens and connects an SFTP channel.
+     */
+    public ChannelSftp openSftp() throws JSchException {
+        ChannelSftp channel = (ChannelSftp) open("sftp");
+        channel.connect();
+        try {
+            channel.setFilenameEncoding(StandardCharsets.UTF_8.displayName());
+        } catch (Exception e) {
+            // server speaks an SFTP version without filename encoding support
+        }
+        return channel;
+    }
+
+    private synchronized com.jcraft.jsch.Channel open(String type) throws JSchException {
+        channels.removeIf(com.jcraft.jsch.Channel::isClosed);
+        if (channels.size() >= getCapacity()) {
+            throw new JSchException("All " + getCapacity() + " reserved channels are in use");
+        }
+        com.jcraft.jsch.Channel channel = lease.get().openChannel(type);
+        channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * Marks the connection as unusable, e.g. after a transport error, and closes the channels.
+     */
+    public synchronized void invalidate() {
+        disconnectAll();
+        lease.invalidate();
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnectAll();
+        lease.close();
+    }
+
+    private void disconnectAll() {
+        for (com.jcraft.jsch.Channel channel : channels) {
+            channel.disconnect();
+        }
+        channels.clear();
+    }
+}
@@ -0,0 +1,47 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+
+/**
+ * Uploads a stream over SFTP keeping a window of write requests in flight instead of waiting for the
+ * acknowledgement of every write. Each write carries as much data as the server accepts in one packet, so
+ * on high latency links throughput is bound by the window rather than by the round trip time.
+ */
+public class PipelinedSftpUploader {
+    /**
+     * 64 requests of 32 KB fill the 2 MB channel window of OpenSSH.
+     */
+    public static final int DEFAULT_WINDOW = 64;
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    private final int window;
+
+    public PipelinedSftpUploader(int window) {
+        this.window = window > 0 ? window : DEFAULT_WINDOW;
+    }
+
+    /**
+     * Writes {@code source} into {@code remoteName}, relative to the current directory of the channel.
+     *
+     * @param mode one of {@link ChannelSftp#OVERWRITE}, {@link ChannelSftp#RESUME} or {@link ChannelSftp#APPEND}
+     * @return the monitor holding byte count and throughput of the transfer
+     */
+    public GsshProgressMonitor upload(LoggerDecorator logger, ChannelSftp sftp, InputStream source, String remoteName,
+                                      int mode) throws JSchException, SftpException {
+        sftp.setBulkRequests(window);
+        GsshProgressMonitor monitor = new GsshProgressMonitor(logger);
+        // Large reads keep every packet full even when the source delivers small chunks
+        sftp.put(new BufferedInputStream(source, BUFFER_SIZE), remoteName, monitor, mode);
+        return monitor;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+}
@@ -0,0 +1,128 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a slow source, such as a file streamed from an agent, ahead of its consumer in large chunks. A bounded
+ * queue of chunks sits between the two: the reader stops when the queue is full, so a slow SFTP upload holds
+ * back the remoting read instead of buffering the whole file, while a fast upload never waits for a round trip
+ * of the source.
+ */
+public class PrefetchInputStream extends InputStream {
+    public static final int CHUNK_SIZE = 1024 * 1024;
+    public static final int DEFAULT_CHUNKS = 8;
+
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks;
+    private final Future<?> reader;
+    private volatile IOException failure;
+    private byte[] current = END;
+    private int position;
+    private boolean ended;
+
+    public PrefetchInputStream(InputStream source) {
+        this(source, CHUNK_SIZE, DEFAULT_CHUNKS);
+    }
+
+    public PrefetchInputStream(InputStream source, int chunkSize, int capacity) {
+        this.chunks = new ArrayBlockingQueue<>(capacity);
+        this.reader = SshExecutors.helpers().submit(() -> fill(source, chunkSize));
+    }
+
+    /**
+     * Always ends the queue with {@link #END}, whatever happens to the source, so the consumer never waits for
+     * data that does not come. Any failure is handed over to the consumer along with it.
+     */
+    private void fill(InputStream source, int chunkSize) {
+        try (InputStream in = source) {
+            while (true) {
+                byte[] chunk = new byte[chunkSize];
+                int length = 0;
+                int read;
+                while (length < chunkSize && (read = in.read(chunk, length, chunkSize - length)) >= 0) {
+                    length += read;
+                }
+                if (length > 0) {
+                    chunks.put(length == chunkSize ? chunk : Arrays.copyOf(chunk, length));
+                }
+                if (length < chunkSize) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            // Usually closed by the consumer, otherwise the data read so far must not pass as complete
+            failure = new InterruptedIOException("Interrupted while reading ahead");
+        } catch (Throwable e) {
+            failure = new IOException("Failed to read ahead: " + e, e);
+        } finally {
+            end();
+        }
+    }
+
+    private void end() {
+        try {
+            chunks.put(END);
+        } catch (InterruptedException e) {
+            // closed by the consumer, which cleared the queue
+            chunks.offer(END);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position == current.length) {
+            if (ended) {
+                return -1;
+            }
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+            position = 0;
+            if (current == END) {
+                ended = true;
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() {
+        reader.cancel(true);
+        chunks.clear();
+        ended = true;
+        current = END;
+        position = 0;
+    }
+}
@@ -0,0 +1,139 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.ChannelSftp;
+import jenkins.plugins.ssh2easy.gssh.GsshPluginException;
+import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads a remote file as several byte ranges fetched at the same time, each over its own SFTP channel on
+ * one shared connection. Every range is written at its offset straight into the local file.
+ */
+public class RangedSftpDownloader {
+    /**
+     * Files are not split into ranges smaller than this, the extra channels would not pay off.
+     */
+    public static final long MIN_RANGE_SIZE = 8L * 1024 * 1024;
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    private final MultiplexedSession session;
+
+    public RangedSftpDownloader(MultiplexedSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Fetches {@code remoteFile} into {@code localFile} using up to {@code ranges} ranges.
+     *
+     * @return number of bytes downloaded
+     */
+    public long download(LoggerDecorator logger, String remoteFile, File localFile, int ranges) throws Exception {
+        long size;
+        ChannelSftp sftp = session.openSftp();
+        try {
+            size = sftp.stat(remoteFile).getSize();
+        } finally {
+            sftp.disconnect();
+        }
+        List<Range> parts = split(size, ranges, session.getCapacity());
+        logger.log("Downloading %s (%d bytes) in %d ranges of up to %d bytes", remoteFile, size, parts.size(),
+                parts.isEmpty() ? 0 : parts.get(0).length);
+
+        long start = System.currentTimeMillis();
+        AtomicLong transferred = new AtomicLong();
+        try (RandomAccessFile file = new RandomAccessFile(localFile, "rw")) {
+            file.setLength(size);
+            FileChannel target = file.getChannel();
+            List<Future<?>> futures = new ArrayList<>();
+            try {
+                for (Range range : parts) {
+                    futures.add(SshExecutors.helpers().submit(() -> {
+                        fetchRange(remoteFile, target, range.offset, range.length, transferred);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                throw new GsshPluginException(e.getCause());
+            } finally {
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        logger.log("Downloaded %d bytes in %.3f s, %.2f MB/s",
+                transferred.get(), millis / 1000.0, transferred.get() / 1048576.0 / (millis / 1000.0));
+        return transferred.get();
+    }
+
+    static int rangeCount(long size, int ranges) {
+        long bySize = Math.max(1, size / MIN_RANGE_SIZE);
+        return (int) Math.max(1, Math.min(ranges, bySize));
+    }
+
+    /**
+     * Splits a file of {@code size} bytes into consecutive ranges of equal size, the last one possibly shorter.
+     * No more ranges are made than {@code capacity} channels can fetch at the same time.
+     */
+    static List<Range> split(long size, int ranges, int capacity) {
+        int count = rangeCount(size, Math.min(ranges, capacity));
+        long rangeSize = (size + count - 1) / count;
+        List<Range> parts = new ArrayList<>(count);
+        for (long offset = 0; offset < size; offset += rangeSize) {
+            parts.add(new Range(offset, Math.min(rangeSize, size - offset)));
+        }
+        return parts;
+    }
+
+    /**
+     * Part of the remote file fetched over one channel.
+     */
+    static final class Range {
+        final long offset;
+        final long length;
+
+        Range(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private void fetchRange(String remoteFile, FileChannel target, long offset, long length, AtomicLong transferred)
+            throws Exception {
+        ChannelSftp sftp = session.openSftp();
+        try (InputStream in = sftp.get(remoteFile, null, offset)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = offset;
+            long remaining = length;
+            while (remaining > 0) {
+                int len = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (len < 0) {
+                    throw new IOException("Remote file " + remoteFile + " ended at " + position
+                            + ", expected " + (offset + length) + " bytes");
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, len);
+                while (chunk.hasRemaining()) {
+                    position += target.write(chunk, position);
+                }
+                remaining -= len;
+                transferred.addAndGet(len);
+            }
+        } finally {
+            sftp.disconnect();
+        }
+    }
+}
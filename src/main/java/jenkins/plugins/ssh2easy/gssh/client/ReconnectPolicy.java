@@ -0,0 +1,79 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.JSchException;
+import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Retries connects which failed for transient reasons, such as a refused or reset connection while the server
+ * restarts, with exponential back-off. Authentication failures are not retried.
+ */
+public class ReconnectPolicy {
+    private static final Logger LOG = Logger.getLogger(ReconnectPolicy.class.getName());
+
+    public static final int DEFAULT_RETRIES = 3;
+    public static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+    public static final long MAX_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+
+    private final int retries;
+
+    public ReconnectPolicy(int retries) {
+        this.retries = Math.max(0, retries);
+    }
+
+    /**
+     * Runs {@code connector} until it succeeds, fails for a non transient reason or the retries are used up.
+     *
+     * @param logger build log to report retries to, may be {@code null}
+     */
+    public <T> T connect(LoggerDecorator logger, Object target, Callable<T> connector) throws Exception {
+        ConnectionMetrics metrics = ConnectionMetrics.get();
+        long start = System.currentTimeMillis();
+        long backoff = INITIAL_BACKOFF;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                T connection = connector.call();
+                metrics.connected();
+                if (attempt > 0) {
+                    metrics.reconnected(System.currentTimeMillis() - start);
+                }
+                return connection;
+            } catch (Exception e) {
+                metrics.connectFailed();
+                if (attempt >= retries || !isTransient(e)) {
+                    throw e;
+                }
+                metrics.retried();
+                String message = String.format("Connecting to %s failed: %s, retrying in %d ms (retry %d of %d)",
+                        target, e.getMessage(), backoff, attempt + 1, retries);
+                LOG.info(message);
+                if (logger != null) {
+                    logger.log(message);
+                }
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
+            }
+        }
+    }
+
+    /**
+     * Network errors are transient, authentication and configuration errors are not.
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+            if (cause instanceof JSchException && cause.getCause() == null) {
+                String message = String.valueOf(cause.getMessage());
+                return message.startsWith("timeout") || message.contains("connection is closed")
+                        || message.contains("Connection refused") || message.contains("Connection reset");
+            }
+        }
+        return false;
+    }
+}
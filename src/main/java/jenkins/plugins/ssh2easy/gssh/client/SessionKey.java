@@ -0,0 +1,76 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import java.util.Objects;
+
+/**
+ * Identity of a pooled SSH connection: server group, host, port, user and whether the transport is compressed.
+ */
+public final class SessionKey {
+    private final String groupName;
+    private final String ip;
+    private final int port;
+    private final String username;
+    private final boolean compressed;
+
+    public SessionKey(String groupName, String ip, int port, String username) {
+        this(groupName, ip, port, username, false);
+    }
+
+    public SessionKey(String groupName, String ip, int port, String username, boolean compressed) {
+        this.groupName = groupName;
+        this.ip = ip;
+        this.port = port;
+        this.username = username;
+        this.compressed = compressed;
+    }
+
+    public SessionKey withCompression(boolean compressed) {
+        return compressed == this.compressed ? this : new SessionKey(groupName, ip, port, username, compressed);
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SessionKey)) {
+            return false;
+        }
+        SessionKey that = (SessionKey) o;
+        return port == that.port
+                && compressed == that.compressed
+                && Objects.equals(groupName, that.groupName)
+                && Objects.equals(ip, that.ip)
+                && Objects.equals(username, that.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(groupName, ip, port, username, compressed);
+    }
+
+    @Override
+    public String toString() {
+        return username + "@" + ip + ":" + port + (compressed ? " zlib" : "") + " [" + groupName + "]";
+    }
+}
@@ -0,0 +1,222 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.ChannelSftp;
+import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings a remote directory up to date with a local one, uploading only files which differ. The size and
+ * modification time of every remote file are listed with one {@code find}; files whose size matches but whose
+ * time does not are compared by SHA-256 checksums computed in one batched {@code sha256sum}. Uploaded files get
+ * the local modification time, so that an unchanged file is recognised by size and time on the next run.
+ * <p>
+ * The remote host needs GNU {@code find} and {@code sha256sum}.
+ */
+public class SftpDirectorySync {
+    private final MultiplexedSession session;
+    private final int sftpWindow;
+    private final boolean deleteRemoved;
+
+    public SftpDirectorySync(MultiplexedSession session, int sftpWindow, boolean deleteRemoved) {
+        this.session = session;
+        this.sftpWindow = sftpWindow;
+        this.deleteRemoved = deleteRemoved;
+    }
+
+    /**
+     * Synchronizes {@code serverLocation} with the content of {@code directory}.
+     *
+     * @return number of bytes uploaded
+     */
+    public long sync(LoggerDecorator logger, File directory, String serverLocation) throws Exception {
+        Path root = directory.toPath();
+        Map<String, RemoteFile> remote = listRemote(logger, serverLocation);
+        List<Path> upload = new ArrayList<>();
+        Map<String, Path> suspects = new HashMap<>();
+        Set<String> local = new HashSet<>();
+        long skippedBytes = 0;
+        for (Path file : SftpDirectoryUploader.listFiles(root)) {
+            String relative = relativePath(root, file);
+            local.add(relative);
+            RemoteFile existing = remote.get(relative);
+            long size = Files.size(file);
+            if (existing == null || existing.size != size) {
+                upload.add(file);
+            } else if (existing.mtime != mtime(file)) {
+                suspects.put(relative, file);
+            } else {
+                skippedBytes += size;
+            }
+        }
+
+        if (!suspects.isEmpty()) {
+            Map<String, String> checksums = remoteChecksums(logger, serverLocation, suspects.keySet());
+            List<Path> unchanged = new ArrayList<>();
+            for (Map.Entry<String, Path> suspect : suspects.entrySet()) {
+                if (sha256(suspect.getValue()).equals(checksums.get(suspect.getKey()))) {
+                    unchanged.add(suspect.getValue());
+                    skippedBytes += Files.size(suspect.getValue());
+                } else {
+                    upload.add(suspect.getValue());
+                }
+            }
+            touch(root, serverLocation, unchanged);
+        }
+
+        long sentBytes = upload.isEmpty() ? 0 : uploader().upload(logger, root, serverLocation, upload);
+
+        int deleted = 0;
+        if (deleteRemoved) {
+            List<String> removed = new ArrayList<>(remote.keySet());
+            removed.removeAll(local);
+            delete(logger, serverLocation, removed);
+            deleted = removed.size();
+        }
+        logger.log("Synchronized %s to %s: sent %d files with %d bytes, skipped %d unchanged files with %d bytes,"
+                        + " deleted %d remote files", directory, serverLocation, upload.size(), sentBytes,
+                local.size() - upload.size(), skippedBytes, deleted);
+        return sentBytes;
+    }
+
+    private SftpDirectoryUploader uploader() {
+        SftpDirectoryUploader uploader = new SftpDirectoryUploader(session, sftpWindow);
+        uploader.setPreserveTimes(true);
+        return uploader;
+    }
+
+    private Map<String, RemoteFile> listRemote(LoggerDecorator logger, String serverLocation) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // A missing target is not an error, everything gets uploaded then
+        String command = "cd " + DefaultSshClient.shellQuote(serverLocation)
+                + " 2>/dev/null || exit 0; find . -type f -printf '%s %T@ %P\\n'";
+        int status = session.exec(command, out, logger.outputStream());
+        if (status != SshClient.STATUS_SUCCESS) {
+            throw new IOException("Failed to list remote files, find exit status " + status);
+        }
+        Map<String, RemoteFile> files = new HashMap<>();
+        for (String line : out.toString(StandardCharsets.UTF_8.name()).split("\n")) {
+            String[] fields = line.split(" ", 3);
+            if (fields.length == 3) {
+                long seconds = Long.parseLong(fields[1].substring(0, fields[1].indexOf('.') < 0
+                        ? fields[1].length() : fields[1].indexOf('.')));
+                files.put(fields[2], new RemoteFile(Long.parseLong(fields[0]), seconds));
+            }
+        }
+        return files;
+    }
+
+    private Map<String, String> remoteChecksums(LoggerDecorator logger, String serverLocation, Set<String> files)
+            throws Exception {
+        Map<String, String> checksums = new HashMap<>();
+        for (String batch : batches("sha256sum --", files)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            session.exec("cd " + DefaultSshClient.shellQuote(serverLocation) + " && " + batch, out,
+                    logger.outputStream());
+            for (String line : out.toString(StandardCharsets.UTF_8.name()).split("\n")) {
+                int separator = line.indexOf("  ");
+                if (separator > 0) {
+                    checksums.put(line.substring(separator + 2), line.substring(0, separator));
+                }
+            }
+        }
+        return checksums;
+    }
+
+    private void delete(LoggerDecorator logger, String serverLocation, List<String> files) throws Exception {
+        for (String batch : batches("rm -f --", files)) {
+            logger.log("Deleting remote files not present locally: %s", batch);
+            int status = session.exec("cd " + DefaultSshClient.shellQuote(serverLocation) + " && " + batch,
+                    logger.outputStream(), logger.outputStream());
+            if (status != SshClient.STATUS_SUCCESS) {
+                throw new IOException("Failed to delete remote files, rm exit status " + status);
+            }
+        }
+    }
+
+    /**
+     * Gives unchanged remote files the local modification time, so they are skipped without checksums next time.
+     */
+    private void touch(Path root, String serverLocation, List<Path> files) throws Exception {
+        if (files.isEmpty()) {
+            return;
+        }
+        ChannelSftp sftp = session.openSftp();
+        try {
+            for (Path file : files) {
+                sftp.setMtime(SftpDirectoryUploader.remotePath(serverLocation, root.relativize(file)),
+                        (int) mtime(file));
+            }
+        } finally {
+            sftp.disconnect();
+        }
+    }
+
+    private static List<String> batches(String command, Iterable<String> files) {
+        List<String> batches = new ArrayList<>();
+        StringBuilder batch = new StringBuilder(command);
+        for (String file : files) {
+            if (batch.length() > SftpDirectoryUploader.MAX_COMMAND_LENGTH) {
+                batches.add(batch.toString());
+                batch.setLength(0);
+                batch.append(command);
+            }
+            batch.append(' ').append(DefaultSshClient.shellQuote(file));
+        }
+        if (batch.length() > command.length()) {
+            batches.add(batch.toString());
+        }
+        return batches;
+    }
+
+    private static String relativePath(Path root, Path file) {
+        StringBuilder path = new StringBuilder();
+        for (Path part : root.relativize(file)) {
+            path.append(path.length() == 0 ? "" : "/").append(part.toString());
+        }
+        return path.toString();
+    }
+
+    private static long mtime(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toMillis() / 1000;
+    }
+
+    private static String sha256(Path file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static final class RemoteFile {
+        private final long size;
+        private final long mtime;
+
+        private RemoteFile(long size, long mtime) {
+            this.size = size;
+            this.mtime = mtime;
+        }
+    }
+}
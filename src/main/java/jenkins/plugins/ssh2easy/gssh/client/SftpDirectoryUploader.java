@@ -0,0 +1,163 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.ChannelSftp;
+import jenkins.plugins.ssh2easy.gssh.GsshPluginException;
+import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Uploads a whole directory tree over one authenticated connection. The remote directories are created up
+ * front with a single {@code mkdir -p}, then a pool of SFTP channels on the same connection takes the files
+ * from a shared queue.
+ */
+public class SftpDirectoryUploader {
+    /**
+     * Keeps a single {@code mkdir -p} well below the argument length limit of the remote shell.
+     */
+    static final int MAX_COMMAND_LENGTH = 64 * 1024;
+
+    private final MultiplexedSession session;
+    private final int sftpWindow;
+    private boolean preserveTimes;
+
+    public SftpDirectoryUploader(MultiplexedSession session, int sftpWindow) {
+        this.session = session;
+        this.sftpWindow = sftpWindow;
+    }
+
+    /**
+     * Gives uploaded files the modification time of the local file instead of the upload time.
+     */
+    public void setPreserveTimes(boolean preserveTimes) {
+        this.preserveTimes = preserveTimes;
+    }
+
+    /**
+     * Copies the content of {@code directory} into {@code serverLocation}, recursing into subdirectories.
+     *
+     * @return number of bytes uploaded
+     */
+    public long upload(LoggerDecorator logger, File directory, String serverLocation) throws Exception {
+        Path root = directory.toPath();
+        return upload(logger, root, serverLocation, listFiles(root));
+    }
+
+    /**
+     * Copies the given files below {@code root} to the same relative paths below {@code serverLocation}.
+     *
+     * @return number of bytes uploaded
+     */
+    public long upload(LoggerDecorator logger, Path root, String serverLocation, List<Path> files)
+            throws Exception {
+        TreeSet<String> directories = new TreeSet<>();
+        directories.add(serverLocation);
+        for (Path file : files) {
+            Path parent = root.relativize(file).getParent();
+            if (parent != null) {
+                directories.add(remotePath(serverLocation, parent));
+            }
+        }
+        createDirectories(logger, directories);
+
+        logger.log("Uploading %d files from %s to %s over %d channels",
+                files.size(), root, serverLocation, session.getCapacity());
+        Queue<Path> queue = new ConcurrentLinkedQueue<>(files);
+        AtomicLong transferred = new AtomicLong();
+        long start = System.currentTimeMillis();
+        int workers = Math.max(1, Math.min(session.getCapacity(), files.size()));
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(SshExecutors.helpers().submit(() -> {
+                    uploadQueued(logger, root, serverLocation, queue, transferred);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new GsshPluginException(e.getCause());
+        } finally {
+            queue.clear();
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        logger.log("Uploaded %d files, %d bytes in %.3f s, %.2f MB/s", files.size(), transferred.get(),
+                millis / 1000.0, transferred.get() / 1048576.0 / (millis / 1000.0));
+        return transferred.get();
+    }
+
+    private void uploadQueued(LoggerDecorator logger, Path root, String serverLocation, Queue<Path> queue,
+                              AtomicLong transferred) throws Exception {
+        ChannelSftp sftp = session.openSftp();
+        try {
+            PipelinedSftpUploader uploader = new PipelinedSftpUploader(sftpWindow);
+            Path file;
+            while ((file = queue.poll()) != null) {
+                String target = remotePath(serverLocation, root.relativize(file));
+                try (InputStream in = new FileInputStream(file.toFile())) {
+                    transferred.addAndGet(uploader.upload(logger, sftp, in, target, ChannelSftp.OVERWRITE)
+                            .getTransferred());
+                }
+                if (preserveTimes) {
+                    sftp.setMtime(target, (int) (Files.getLastModifiedTime(file).toMillis() / 1000));
+                }
+            }
+        } finally {
+            sftp.disconnect();
+        }
+    }
+
+    private void createDirectories(LoggerDecorator logger, TreeSet<String> directories) throws Exception {
+        StringBuilder command = new StringBuilder();
+        for (String directory : directories) {
+            if (command.length() > MAX_COMMAND_LENGTH) {
+                runMkdir(logger, command);
+                command.setLength(0);
+            }
+            command.append(' ').append(DefaultSshClient.shellQuote(directory));
+        }
+        runMkdir(logger, command);
+    }
+
+    private void runMkdir(LoggerDecorator logger, CharSequence directories) throws Exception {
+        int status = session.exec("mkdir -p" + directories, logger.outputStream(), logger.outputStream());
+        if (status != SshClient.STATUS_SUCCESS) {
+            throw new IOException("Failed to create remote directories, mkdir exit status " + status);
+        }
+    }
+
+    static List<Path> listFiles(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    static String remotePath(String serverLocation, Path relative) {
+        StringBuilder path = new StringBuilder(serverLocation.endsWith("/")
+                ? serverLocation.substring(0, serverLocation.length() - 1) : serverLocation);
+        for (Path part : relative) {
+            path.append('/').append(part.toString());
+        }
+        return path.toString();
+    }
+}
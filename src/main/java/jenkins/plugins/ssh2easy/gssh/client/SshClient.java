@@ -5,26 +5,120 @@ import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Operations on one server. The {@code Async} variants return at once, but only the MINA transport completes
+ * them from its event loop; on Trilead and JSch each of them blocks a thread of the shared worker pool for its
+ * whole duration, see {@link SshResult#onWorker}.
+ */
 @SuppressWarnings("UnusedReturnValue")
 public interface SshClient {
     int STATUS_SUCCESS = 0;
     int STATUS_FAILED = -1;
+    String DEFAULT_INTERPRETER = "bash -s";
 
     int executeCommand(LoggerDecorator logger, String command);
 
+    /**
+     * Starts a command and returns at once. The future completes with the exit status and the number of output
+     * bytes; clients without an event loop run the blocking command on the shared worker pool.
+     */
+    default CompletableFuture<SshResult> executeCommandAsync(LoggerDecorator logger, String command) {
+        AtomicLong bytes = new AtomicLong();
+        LoggerDecorator counted = logger.countingOutput(bytes);
+        return SshResult.onWorker(() -> executeCommand(counted, command), bytes::get);
+    }
+
     int executeShell(LoggerDecorator logger, String shell);
 
+    default CompletableFuture<SshResult> executeShellAsync(LoggerDecorator logger, String shell) {
+        AtomicLong bytes = new AtomicLong();
+        LoggerDecorator counted = logger.countingOutput(bytes);
+        return SshResult.onWorker(() -> executeShell(counted, shell), bytes::get);
+    }
+
     int executeShellByFTP(LoggerDecorator logger, String shell);
 
+    /**
+     * Starts {@code interpreter}, e.g. {@code bash -s}, on one exec channel and streams the script into its stdin.
+     * Nothing is written to the server file system.
+     */
+    int executeScript(LoggerDecorator logger, String interpreter, String script);
+
+    default CompletableFuture<SshResult> executeScriptAsync(LoggerDecorator logger, String interpreter,
+                                                            String script) {
+        AtomicLong bytes = new AtomicLong();
+        LoggerDecorator counted = logger.countingOutput(bytes);
+        return SshResult.onWorker(() -> executeScript(counted, interpreter, script), bytes::get);
+    }
+
     int uploadFile(LoggerDecorator logger, String fileName, String fileContent, String serverLocation);
 
     int uploadFile(LoggerDecorator logger, String fileName, InputStream fileContent, String serverLocation);
 
     int uploadFile(LoggerDecorator logger, String fileName, File file, String serverLocation);
 
+    default CompletableFuture<SshResult> uploadFileAsync(LoggerDecorator logger, String fileName, File file,
+                                                         String serverLocation) {
+        return SshResult.onWorker(() -> uploadFile(logger, fileName, file, serverLocation), file::length);
+    }
+
+    /**
+     * Uploads a file from the node owning it, e.g. from the workspace on an agent.
+     */
+    int uploadFile(LoggerDecorator logger, String fileName, FilePath file, String serverLocation);
+
+    /**
+     * Continues an interrupted upload from the size of the partial remote file, then verifies size and checksum.
+     * Starts over from the first byte when the remote file is larger than the source or the check fails.
+     */
+    int resumeUpload(LoggerDecorator logger, String fileName, File file, String serverLocation);
+
+    int resumeUpload(LoggerDecorator logger, String fileName, FilePath file, String serverLocation);
+
+    /**
+     * Uploads a directory tree over one connection, using up to {@code workers} SFTP channels in parallel.
+     */
+    int uploadDirectory(LoggerDecorator logger, File directory, String serverLocation, int workers);
+
+    /**
+     * Uploads only the files of a directory which differ from the remote copy, optionally deleting remote files
+     * which no longer exist locally.
+     */
+    int syncDirectory(LoggerDecorator logger, File directory, String serverLocation, int workers,
+                      boolean deleteRemoved);
+
+    /**
+     * Streams a directory as a tar archive into a remote {@code tar x} over one exec channel.
+     */
+    int uploadDirectoryAsTar(LoggerDecorator logger, FilePath directory, String serverLocation, boolean compress);
+
     int downloadFile(LoggerDecorator logger, String remoteFile, FilePath localFile);
 
+    default CompletableFuture<SshResult> downloadFileAsync(LoggerDecorator logger, String remoteFile,
+                                                           FilePath localFile) {
+        return SshResult.onWorker(() -> downloadFile(logger, remoteFile, localFile), localFile::length);
+    }
+
+    /**
+     * Downloads a file as up to {@code ranges} byte ranges fetched at the same time.
+     */
+    int downloadFile(LoggerDecorator logger, String remoteFile, FilePath localFile, int ranges);
+
+    /**
+     * Continues an interrupted download from the size of the partial local file, then verifies size and checksum.
+     * Starts over from the first byte when the local file is larger than the source or the check fails.
+     */
+    int resumeDownload(LoggerDecorator logger, String remoteFile, FilePath localFile);
+
+    /**
+     * Unpacks the tar stream of a remote {@code tar c} of a whole directory into a local directory.
+     */
+    int downloadDirectoryAsTar(LoggerDecorator logger, String remoteDirectory, FilePath localDirectory,
+                               boolean compress);
+
     int chmod(LoggerDecorator logger, int mode, String path);
 
     int chown(LoggerDecorator logger, String own, String path);
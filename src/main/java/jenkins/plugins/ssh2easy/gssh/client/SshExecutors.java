@@ -0,0 +1,120 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Thread pools shared by every SSH operation of the plugin, so that concurrent remote commands cost a fixed
+ * number of threads instead of one new executor each.
+ * <p>
+ * Pool sizes are set with system properties prefixed by this class name. With {@code virtualThreads=true}
+ * and a JVM that supports them, tasks run on virtual threads and the platform thread bound no longer applies.
+ */
+public final class SshExecutors {
+    private static final Logger LOG = Logger.getLogger(SshExecutors.class.getName());
+
+    public static final int WORKERS = Integer.getInteger(SshExecutors.class.getName() + ".workers", 64);
+    public static final int HELPERS = Integer.getInteger(SshExecutors.class.getName() + ".helpers", 64);
+    public static final boolean VIRTUAL_THREADS = Boolean.getBoolean(SshExecutors.class.getName() + ".virtualThreads");
+
+    private static final MeteredExecutor WORKER_POOL = create("ssh2easy worker", WORKERS);
+    private static final MeteredExecutor HELPER_POOL = create("ssh2easy helper", HELPERS);
+    private static final ScheduledExecutorService SCHEDULER = createScheduler("ssh2easy scheduler");
+    private static final ScheduledExecutorService LOG_FLUSHER = createScheduler("ssh2easy log flusher");
+
+    private SshExecutors() {
+    }
+
+    /**
+     * Runs whole remote operations on behalf of a build step, e.g. one host of a group or an asynchronous
+     * Pipeline step. Callers bound their own share of it.
+     */
+    public static MeteredExecutor workers() {
+        return WORKER_POOL;
+    }
+
+    /**
+     * Runs parts of an operation for the thread running it, such as connecting a MINA session, reading ahead of
+     * an upload or one channel of a directory or ranged transfer. Operations on {@link #workers()} wait for these
+     * tasks, so they get threads of their own and never run whole operations, which keeps a full worker pool
+     * from waiting on itself.
+     */
+    public static MeteredExecutor helpers() {
+        return HELPER_POOL;
+    }
+
+    /**
+     * The metered pools, for the statistics on the global configuration page.
+     */
+    public static List<MeteredExecutor> all() {
+        return Arrays.asList(WORKER_POOL, HELPER_POOL);
+    }
+
+    /**
+     * Runs short periodic tasks, such as keep-alive messages on connections busy with a long command.
+     */
+    public static ScheduledExecutorService scheduler() {
+        return SCHEDULER;
+    }
+
+    /**
+     * Writes buffered output to build logs once its flush latency is up. Kept apart from {@link #scheduler()},
+     * where a keep-alive stuck on a dead connection would otherwise hold back the logs of every build.
+     */
+    public static ScheduledExecutorService logFlusher() {
+        return LOG_FLUSHER;
+    }
+
+    private static ScheduledExecutorService createScheduler(String name) {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                new NamingThreadFactory(new DaemonThreadFactory(), name));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    static MeteredExecutor create(String name, int maxThreads) {
+        if (VIRTUAL_THREADS) {
+            ExecutorService virtual = newVirtualThreadExecutor(name);
+            if (virtual != null) {
+                return new MeteredExecutor(name, virtual, maxThreads, true);
+            }
+        }
+        int threads = Math.max(1, maxThreads);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), name));
+        executor.allowCoreThreadTimeOut(true);
+        return new MeteredExecutor(name, executor, threads, false);
+    }
+
+    /**
+     * Looks up the virtual thread API reflectively, since the plugin is built for Java 8. The methods are taken
+     * from the public {@code Thread.Builder} interface, the builder instance itself is of an internal class.
+     */
+    static ExecutorService newVirtualThreadExecutor(String name) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + " ", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.log(Level.INFO, "Virtual threads are not available on this JVM, using platform threads for "
+                    + name, e);
+            return null;
+        }
+    }
+}
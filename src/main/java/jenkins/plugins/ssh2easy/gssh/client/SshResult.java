@@ -0,0 +1,75 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Outcome of an asynchronous {@link SshClient} operation: exit status, bytes moved and how long it took.
+ * For commands the bytes are the output written to the log, for transfers the size of the file.
+ */
+public final class SshResult {
+    private final int status;
+    private final long bytes;
+    private final long millis;
+
+    public SshResult(int status, long bytes, long millis) {
+        this.status = status;
+        this.bytes = bytes;
+        this.millis = millis;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status == SshClient.STATUS_SUCCESS;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Bytes per second, {@code 0} for operations too short to measure.
+     */
+    public long getThroughput() {
+        return millis > 0 ? bytes * 1000 / millis : 0;
+    }
+
+    /**
+     * Runs a blocking operation on the shared worker pool, for clients whose SSH library has no event loop to
+     * complete the future from. The operation holds a worker thread until it is done, so with Trilead and JSch
+     * the number of concurrent asynchronous operations is bounded by the size of that pool; only the MINA
+     * transport runs them without a waiting thread.
+     */
+    public static CompletableFuture<SshResult> onWorker(Callable<Integer> operation, Callable<Long> bytes) {
+        CompletableFuture<SshResult> result = new CompletableFuture<>();
+        Future<?> task = SshExecutors.workers().submit(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                int status = operation.call();
+                result.complete(new SshResult(status, bytes.call(), System.currentTimeMillis() - start));
+            } catch (Exception | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        // Cancelling the future interrupts the worker, e.g. when the build is aborted
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "status=" + status + ",bytes=" + bytes + ",millis=" + millis;
+    }
+}
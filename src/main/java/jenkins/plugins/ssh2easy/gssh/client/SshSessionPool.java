@@ -0,0 +1,351 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps authenticated SSH connections open between operations, so consecutive calls against the same host
+ * skip TCP connect, key exchange and authentication. Connections are keyed by {@link SessionKey}, capped per
+ * host, validated when borrowed and closed once they have been idle for longer than the idle timeout.
+ * <p>
+ * A connection is shared by concurrent operations up to a channel limit, since SSH multiplexes any number of
+ * channels over one transport. Operations therefore borrow channel slots rather than whole connections.
+ *
+ * @param <T> connection type of the underlying SSH library
+ */
+public class SshSessionPool<T> {
+    private static final Logger LOG = Logger.getLogger(SshSessionPool.class.getName());
+
+    public static final int DEFAULT_MAX_PER_HOST =
+            Integer.getInteger(SshSessionPool.class.getName() + ".maxPerHost", 8);
+    public static final long DEFAULT_IDLE_TIMEOUT =
+            Long.getLong(SshSessionPool.class.getName() + ".idleTimeout", TimeUnit.MINUTES.toMillis(5));
+    public static final long DEFAULT_BORROW_TIMEOUT =
+            Long.getLong(SshSessionPool.class.getName() + ".borrowTimeout", TimeUnit.MINUTES.toMillis(2));
+
+    /**
+     * Library specific operations the pool needs on a connection it holds.
+     */
+    public interface Handler<T> {
+        /**
+         * Checks that a connection taken from the pool can still be used.
+         */
+        boolean isAlive(T connection);
+
+        void close(T connection);
+    }
+
+    private final ConcurrentMap<SessionKey, HostPool> hosts = new ConcurrentHashMap<>();
+    private final Handler<T> handler;
+    private final int maxPerHost;
+    private final long idleTimeout;
+    private final long borrowTimeout;
+
+    public SshSessionPool(Handler<T> handler) {
+        this(handler, DEFAULT_MAX_PER_HOST, DEFAULT_IDLE_TIMEOUT, DEFAULT_BORROW_TIMEOUT);
+    }
+
+    public SshSessionPool(Handler<T> handler, int maxPerHost, long idleTimeout, long borrowTimeout) {
+        this.handler = handler;
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.idleTimeout = idleTimeout;
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    /**
+     * Wraps a connection which is not managed by any pool, closing it when the lease is closed.
+     */
+    public static <T> Lease<T> detached(T connection, Handler<T> handler) {
+        return new Lease<>(null, null, connection, handler);
+    }
+
+    /**
+     * Reserves a single channel on a connection for the given key, see {@link #borrow(SessionKey, Callable, int, int)}.
+     */
+    public Lease<T> borrow(SessionKey key, Callable<T> connector) throws Exception {
+        return borrow(key, connector, 1, 1);
+    }
+
+    /**
+     * Reserves {@code channels} channels on one connection for the given key. An open connection is shared as
+     * long as it carries no more than {@code channelLimit} channels; a new one is opened with {@code connector}
+     * only once every open connection is at that limit and the per host cap allows it. Otherwise waits until
+     * channels are released.
+     */
+    public Lease<T> borrow(SessionKey key, Callable<T> connector, int channels, int channelLimit) throws Exception {
+        int limit = Math.max(1, channelLimit);
+        if (channels < 1 || channels > limit) {
+            throw new IllegalArgumentException("Cannot reserve " + channels + " channels with a limit of " + limit);
+        }
+        return hosts.computeIfAbsent(key, k -> new HostPool()).borrow(key, connector, channels, limit);
+    }
+
+    /**
+     * Closes connections which have not been used for longer than the idle timeout.
+     */
+    public void evictIdle() {
+        long threshold = System.currentTimeMillis() - idleTimeout;
+        for (HostPool host : hosts.values()) {
+            host.evictOlderThan(threshold);
+        }
+    }
+
+    /**
+     * Closes all idle connections. Connections currently leased are closed when they are returned.
+     */
+    public void clear() {
+        for (HostPool host : hosts.values()) {
+            host.invalidateAll();
+        }
+    }
+
+    public int getIdleCount() {
+        return hosts.values().stream().mapToInt(HostPool::idleCount).sum();
+    }
+
+    public int getOpenCount() {
+        return hosts.values().stream().mapToInt(HostPool::openCount).sum();
+    }
+
+    public int getChannelCount() {
+        return hosts.values().stream().mapToInt(HostPool::channelCount).sum();
+    }
+
+    private void closeQuietly(SessionKey key, T connection) {
+        try {
+            handler.close(connection);
+        } catch (Exception e) {
+            LOG.log(Level.FINE, "Failed to close pooled ssh connection " + key, e);
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T connection;
+        private final long generation;
+        private int channels;
+        private boolean broken;
+        private long lastUsed = System.currentTimeMillis();
+
+        private Entry(T connection, long generation) {
+            this.connection = connection;
+            this.generation = generation;
+        }
+    }
+
+    private final class HostPool {
+        private final List<Entry<T>> connections = new ArrayList<>();
+        private int connecting;
+        private long generation;
+
+        Lease<T> borrow(SessionKey key, Callable<T> connector, int channels, int limit) throws Exception {
+            long deadline = System.currentTimeMillis() + borrowTimeout;
+            while (true) {
+                Entry<T> candidate;
+                long connectGeneration;
+                synchronized (this) {
+                    while ((candidate = findShareable(channels, limit)) == null
+                            && connections.size() + connecting >= maxPerHost) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) {
+                            throw new TimeoutException("No ssh connection to " + key + " could take " + channels
+                                    + " more channels within " + borrowTimeout + " ms, "
+                                    + connections.size() + " already open");
+                        }
+                        wait(remaining);
+                    }
+                    if (candidate == null) {
+                        connecting++;
+                    } else if (candidate.channels > 0) {
+                        // A connection carrying other channels is in use and therefore known to be alive
+                        candidate.channels += channels;
+                        return new Lease<>(SshSessionPool.this, key, candidate.connection, handler, candidate,
+                                channels);
+                    } else {
+                        candidate.channels = channels;
+                    }
+                    connectGeneration = generation;
+                }
+                if (candidate == null) {
+                    Entry<T> entry;
+                    try {
+                        entry = new Entry<>(connector.call(), connectGeneration);
+                    } catch (Exception e) {
+                        synchronized (this) {
+                            connecting--;
+                            notifyAll();
+                        }
+                        throw e;
+                    }
+                    synchronized (this) {
+                        connecting--;
+                        entry.channels = channels;
+                        connections.add(entry);
+                    }
+                    return new Lease<>(SshSessionPool.this, key, entry.connection, handler, entry, channels);
+                }
+                if (handler.isAlive(candidate.connection)) {
+                    return new Lease<>(SshSessionPool.this, key, candidate.connection, handler, candidate,
+                            channels);
+                }
+                LOG.fine("Discarding stale ssh connection " + key);
+                ConnectionMetrics.get().staleConnectionDiscarded();
+                synchronized (this) {
+                    connections.remove(candidate);
+                    notifyAll();
+                }
+                closeQuietly(key, candidate.connection);
+            }
+        }
+
+        /**
+         * Picks the busiest connection which still has room, keeping the number of open connections low.
+         */
+        private Entry<T> findShareable(int channels, int limit) {
+            Entry<T> best = null;
+            for (Entry<T> entry : connections) {
+                if (entry.broken || entry.generation != generation || entry.channels + channels > limit) {
+                    continue;
+                }
+                if (best == null || entry.channels > best.channels) {
+                    best = entry;
+                }
+            }
+            return best;
+        }
+
+        void release(SessionKey key, Entry<T> entry, int channels, boolean broken) {
+            synchronized (this) {
+                entry.channels -= channels;
+                entry.broken |= broken;
+                entry.lastUsed = System.currentTimeMillis();
+                notifyAll();
+                if (entry.channels > 0 || (!entry.broken && entry.generation == generation)) {
+                    return;
+                }
+                connections.remove(entry);
+            }
+            closeQuietly(key, entry.connection);
+        }
+
+        void evictOlderThan(long threshold) {
+            evict(entry -> entry.lastUsed < threshold);
+        }
+
+        void invalidateAll() {
+            synchronized (this) {
+                generation++;
+            }
+            evict(entry -> true);
+        }
+
+        private void evict(Predicate<Entry<T>> filter) {
+            List<Entry<T>> evicted = new ArrayList<>();
+            synchronized (this) {
+                Iterator<Entry<T>> it = connections.iterator();
+                while (it.hasNext()) {
+                    Entry<T> entry = it.next();
+                    if (entry.channels == 0 && filter.test(entry)) {
+                        it.remove();
+                        evicted.add(entry);
+                    }
+                }
+                notifyAll();
+            }
+            for (Entry<T> entry : evicted) {
+                closeQuietly(null, entry.connection);
+            }
+        }
+
+        synchronized int idleCount() {
+            return (int) connections.stream().filter(entry -> entry.channels == 0).count();
+        }
+
+        synchronized int openCount() {
+            return connections.size();
+        }
+
+        synchronized int channelCount() {
+            return connections.stream().mapToInt(entry -> entry.channels).sum();
+        }
+    }
+
+    /**
+     * Reservation of one or more channels on a connection. Closing the lease hands the channels back to the
+     * pool; the connection itself stays open for further use.
+     */
+    public static final class Lease<T> implements AutoCloseable {
+        private final SshSessionPool<T> pool;
+        private final SessionKey key;
+        private final T connection;
+        private final Handler<T> handler;
+        private final Entry<T> entry;
+        private final int channels;
+        private boolean closed;
+
+        private Lease(SshSessionPool<T> pool, SessionKey key, T connection, Handler<T> handler) {
+            this(pool, key, connection, handler, null, 1);
+        }
+
+        private Lease(SshSessionPool<T> pool, SessionKey key, T connection, Handler<T> handler, Entry<T> entry,
+                      int channels) {
+            this.pool = pool;
+            this.key = key;
+            this.connection = connection;
+            this.handler = handler;
+            this.entry = entry;
+            this.channels = channels;
+        }
+
+        public T get() {
+            return connection;
+        }
+
+        /**
+         * Key the connection is pooled under, {@code null} for a detached connection.
+         */
+        public SessionKey getKey() {
+            return key;
+        }
+
+        /**
+         * Number of channels reserved by this lease.
+         */
+        public int getChannels() {
+            return channels;
+        }
+
+        /**
+         * Returns the lease and marks the connection as unusable, e.g. after a transport error. The connection
+         * is closed as soon as no other lease uses it.
+         */
+        public synchronized void invalidate() {
+            release(true);
+        }
+
+        @Override
+        public synchronized void close() {
+            release(false);
+        }
+
+        private void release(boolean broken) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (pool == null) {
+                handler.close(connection);
+            } else {
+                pool.hosts.get(key).release(key, entry, channels, broken);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.init.Terminator;
+import jenkins.plugins.ssh2easy.gssh.ServerGroup;
+
+/**
+ * SSH library backing the clients of a server group. Each transport creates the {@link SshClient} for a host
+ * and owns whatever connection state it keeps between operations, so a group can be switched to another library
+ * without touching the build steps. Other plugins may contribute transports as extensions.
+ */
+public abstract class SshTransport implements ExtensionPoint {
+
+    /**
+     * Transport of server groups saved before transports could be chosen: Trilead for commands, JSch for
+     * file transfers.
+     */
+    public static final String DEFAULT_ID = TrileadTransport.ID;
+
+    /**
+     * Stable identifier stored in the server group configuration.
+     */
+    public abstract String getId();
+
+    public abstract String getDisplayName();
+
+    /**
+     * Creates a client for one server of the group.
+     */
+    public abstract SshClient createClient(ServerGroup group, String ip);
+
+    /**
+     * Closes pooled connections which stayed unused for longer than the pool idle timeout.
+     */
+    public void evictIdle() {
+    }
+
+    /**
+     * Drops every pooled connection of this transport.
+     */
+    public void clear() {
+    }
+
+    /**
+     * Releases everything the transport holds, such as threads of its library. Called when Jenkins shuts down,
+     * which is also the only time the plugin is unloaded.
+     */
+    public void stop() {
+        clear();
+    }
+
+    @Terminator
+    public static void stopAll() {
+        all().forEach(SshTransport::stop);
+    }
+
+    public static ExtensionList<SshTransport> all() {
+        return ExtensionList.lookup(SshTransport.class);
+    }
+
+    /**
+     * Looks up a transport by its identifier, falling back to the default transport for unknown identifiers,
+     * e.g. of a transport contributed by a plugin which has since been removed.
+     */
+    public static SshTransport byId(String id) {
+        SshTransport fallback = null;
+        for (SshTransport transport : all()) {
+            if (transport.getId().equals(id)) {
+                return transport;
+            }
+            if (transport.getId().equals(DEFAULT_ID)) {
+                fallback = transport;
+            }
+        }
+        if (fallback == null) {
+            throw new IllegalStateException("No ssh transport registered for " + id);
+        }
+        return fallback;
+    }
+}
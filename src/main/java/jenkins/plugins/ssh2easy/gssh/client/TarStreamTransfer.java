@@ -0,0 +1,74 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.ChannelExec;
+import hudson.FilePath;
+import hudson.util.io.ArchiverFactory;
+import jenkins.plugins.ssh2easy.gssh.LoggerDecorator;
+
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Moves whole directories as a tar stream through a remote {@code tar} process on one exec channel, which
+ * avoids the per file round trips of SFTP. Nothing is staged on disk at either end.
+ */
+public class TarStreamTransfer {
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    private final MultiplexedSession session;
+
+    public TarStreamTransfer(MultiplexedSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Streams the content of {@code directory} into a remote {@code tar x} unpacking into {@code serverLocation}.
+     *
+     * @return exit status of the remote tar
+     */
+    public int upload(LoggerDecorator logger, FilePath directory, String serverLocation, boolean compress)
+            throws Exception {
+        String target = DefaultSshClient.shellQuote(serverLocation);
+        String command = "mkdir -p " + target + " && tar -x" + (compress ? "z" : "") + "f - -C " + target;
+        logger.log("Executing: %s", command);
+        ChannelExec exec = session.openExec(command);
+        try {
+            // The session thread copies the remote output while this thread writes the archive
+            ExecOutputPump pump = ExecOutputPump.passive(exec, logger.outputStream(), logger.outputStream());
+            OutputStream remoteIn = exec.getOutputStream();
+            exec.connect();
+            try (OutputStream out = new BufferedOutputStream(remoteIn, BUFFER_SIZE)) {
+                int files = directory.archive(compress ? ArchiverFactory.TARGZ : ArchiverFactory.TAR, out, "**/*");
+                logger.log("Streamed %d files from %s", files, directory);
+            }
+            return pump.await();
+        } finally {
+            exec.disconnect();
+        }
+    }
+
+    /**
+     * Unpacks the output of a remote {@code tar c} of {@code remoteDirectory} into {@code localDirectory}.
+     *
+     * @return exit status of the remote tar
+     */
+    public int download(LoggerDecorator logger, String remoteDirectory, FilePath localDirectory, boolean compress)
+            throws Exception {
+        String command = "tar -c" + (compress ? "z" : "") + "f - -C " + DefaultSshClient.shellQuote(remoteDirectory)
+                + " .";
+        logger.log("Executing: %s", command);
+        ChannelExec exec = session.openExec(command);
+        try {
+            exec.setExtOutputStream(logger.outputStream(), true);
+            InputStream remoteOut = exec.getInputStream();
+            exec.connect();
+            localDirectory.mkdirs();
+            // untarFrom reads the stream to its end and closes it
+            localDirectory.untarFrom(remoteOut, compress ? FilePath.TarCompression.GZIP : FilePath.TarCompression.NONE);
+            return DefaultSshClient.awaitExitStatus(exec);
+        } finally {
+            exec.disconnect();
+        }
+    }
+}
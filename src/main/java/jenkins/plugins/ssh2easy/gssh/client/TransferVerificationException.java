@@ -0,0 +1,16 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a transferred file differs from its source in size or checksum. Resuming such a transfer again
+ * cannot repair it, only starting over can.
+ */
+public class TransferVerificationException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TransferVerificationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,32 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import hudson.Extension;
+import jenkins.plugins.ssh2easy.gssh.GsshBuilderWrapper;
+import jenkins.plugins.ssh2easy.gssh.ServerGroup;
+
+/**
+ * Runs commands over Trilead and transfers files over JSch, both pooled by the plugin descriptor.
+ */
+@Extension
+public class TrileadTransport extends SshTransport {
+    public static final String ID = "trilead";
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Trilead commands, JSch transfers";
+    }
+
+    @Override
+    public SshClient createClient(ServerGroup group, String ip) {
+        JenkinsSshClient client = new JenkinsSshClient(group, ip);
+        client.setSessionPool(GsshBuilderWrapper.DESCRIPTOR.getSessionPool());
+        client.setConnectionPool(GsshBuilderWrapper.DESCRIPTOR.getConnectionPool());
+        client.setCompressionAdvisor(GsshBuilderWrapper.DESCRIPTOR.getCompressionAdvisor());
+        return client;
+    }
+}
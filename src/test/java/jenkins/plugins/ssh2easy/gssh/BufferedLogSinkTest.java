@@ -0,0 +1,91 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BufferedLogSinkTest {
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    public void smallWritesStayBufferedUntilTheBufferIsFull() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        BufferedLogSink sink = new BufferedLogSink(target, 1024, NEVER);
+        sink.write(new byte[1000], 0, 1000);
+        sink.write('x');
+        assertEquals(0, target.size());
+        assertEquals(0, sink.getFlushCount());
+
+        // Does not fit next to the buffered bytes, which are written out first
+        sink.write(new byte[100], 0, 100);
+        assertEquals(1001, target.size());
+        assertEquals(1, sink.getFlushCount());
+        assertEquals(1101, sink.getBytesLogged());
+    }
+
+    @Test
+    public void writesLargerThanTheBufferBypassIt() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        BufferedLogSink sink = new BufferedLogSink(target, 1024, NEVER);
+        sink.write(new byte[]{1, 2, 3}, 0, 3);
+        byte[] large = new byte[4096];
+        large[0] = 4;
+        sink.write(large, 0, large.length);
+        assertEquals(3 + 4096, target.size());
+        assertEquals(2, sink.getFlushCount());
+        byte[] written = target.toByteArray();
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, new byte[]{written[0], written[1], written[2], written[3]});
+    }
+
+    @Test
+    public void flushWaitsForTheLatency() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        BufferedLogSink sink = new BufferedLogSink(target, 1024, NEVER);
+        sink.write(new byte[10], 0, 10);
+        sink.flush();
+        assertEquals(0, target.size());
+        sink.sync();
+        assertEquals(10, target.size());
+        assertEquals(1, sink.getFlushCount());
+    }
+
+    @Test
+    public void bufferedOutputIsWrittenOnceTheLatencyIsUp() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        BufferedLogSink sink = new BufferedLogSink(target, 1024, 20);
+        sink.write(new byte[10], 0, 10);
+        sink.write(new byte[5], 0, 5);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (target.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(15, target.size());
+        // Both writes went out together
+        assertEquals(1, sink.getFlushCount());
+    }
+
+    @Test
+    public void withoutLatencyEveryFlushWrites() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        BufferedLogSink sink = new BufferedLogSink(target, 1024, 0);
+        sink.write(new byte[10], 0, 10);
+        assertEquals(10, target.size());
+        sink.flush();
+        assertEquals(1, sink.getFlushCount());
+    }
+
+    @Test
+    public void closeWritesEverything() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        BufferedLogSink sink = new BufferedLogSink(target, 1024, NEVER);
+        sink.write(new byte[10], 0, 10);
+        sink.close();
+        assertEquals(10, target.size());
+        sink.write(new byte[5], 0, 5);
+        assertEquals(15, target.size());
+    }
+}
@@ -0,0 +1,112 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GroupExecutionTest {
+
+    private static List<Server> servers(int count) {
+        List<Server> servers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            servers.add(new Server("group", "host" + i, "10.0.0." + i));
+        }
+        return servers;
+    }
+
+    @Test
+    public void allServersFormOneBatchByDefault() {
+        GroupExecution execution = new GroupExecution(servers(8), 4);
+        assertEquals(8, execution.getHostsPerBatch());
+    }
+
+    @Test
+    public void batchSizeAsCountOrPercentage() {
+        GroupExecution execution = new GroupExecution(servers(8), 4);
+        execution.setBatchSize("3");
+        assertEquals(3, execution.getHostsPerBatch());
+        execution.setBatchSize("25%");
+        assertEquals(2, execution.getHostsPerBatch());
+        execution.setBatchSize("30%");
+        assertEquals(3, execution.getHostsPerBatch());
+    }
+
+    @Test
+    public void batchHoldsAtLeastOneServer() {
+        GroupExecution execution = new GroupExecution(servers(8), 4);
+        execution.setBatchSize("0");
+        assertEquals(1, execution.getHostsPerBatch());
+        execution.setBatchSize("0%");
+        assertEquals(1, execution.getHostsPerBatch());
+    }
+
+    @Test
+    public void failureThreshold() {
+        GroupExecution execution = new GroupExecution(servers(10), 4);
+        assertEquals(0, execution.getAllowedFailures());
+        execution.setFailureThreshold("2");
+        assertEquals(2, execution.getAllowedFailures());
+        execution.setFailureThreshold("15%");
+        assertEquals(2, execution.getAllowedFailures());
+        execution.setFailureThreshold("nonsense");
+        assertEquals(0, execution.getAllowedFailures());
+    }
+
+    @Test
+    public void parallelismFallsBackToDefault() {
+        assertEquals(GroupExecution.DEFAULT_PARALLELISM, new GroupExecution(servers(2), 0).getParallelism());
+        assertEquals(3, new GroupExecution(servers(2), 3).getParallelism());
+    }
+
+    @Test
+    public void emptySelectionFails() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GroupExecution execution = new GroupExecution(Collections.emptyList(), 4);
+        boolean success = execution.execute(new LoggerDecorator(new PrintStream(log, true, "UTF-8")),
+                (client, logger) -> {
+                    fail("no host should be run");
+                    return 0;
+                });
+        assertFalse(success);
+        assertTrue(log.toString("UTF-8").contains("nothing was run"));
+    }
+
+    @Test
+    public void hostOutputIsWrittenInPrefixedLines() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        LoggerDecorator logger = new LoggerDecorator(new PrintStream(log, true, "UTF-8"));
+        GroupExecution.HostOutputStream out = new GroupExecution.HostOutputStream(logger, "10.0.0.1");
+        out.write("one\ntw".getBytes("UTF-8"));
+        assertEquals("[10.0.0.1] one\n", log.toString("UTF-8"));
+        out.write('o');
+        out.write('\n');
+        out.write("three".getBytes("UTF-8"));
+        out.close();
+        assertEquals("[10.0.0.1] one\n[10.0.0.1] two\n[10.0.0.1] three\n", log.toString("UTF-8"));
+    }
+
+    @Test
+    public void longHostOutputLinesAreBrokenUp() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        LoggerDecorator logger = new LoggerDecorator(new PrintStream(log, true, "UTF-8"));
+        GroupExecution.HostOutputStream out = new GroupExecution.HostOutputStream(logger, "h");
+        byte[] line = new byte[GroupExecution.HostOutputStream.MAX_LINE + 10];
+        Arrays.fill(line, (byte) 'x');
+        out.write(line);
+        out.close();
+        String[] lines = log.toString("UTF-8").split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("[h] ".length() + GroupExecution.HostOutputStream.MAX_LINE, lines[0].length());
+        assertEquals("[h] xxxxxxxxxx", lines[1]);
+    }
+}
@@ -0,0 +1,59 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HostCountSpecTest {
+
+    @Test
+    public void blankSpecResolvesToDefault() {
+        assertEquals(7, HostCountSpec.resolve(null, 10, 7));
+        assertEquals(7, HostCountSpec.resolve("", 10, 7));
+        assertEquals(7, HostCountSpec.resolve("   ", 10, 7));
+    }
+
+    @Test
+    public void absoluteCount() {
+        assertEquals(3, HostCountSpec.resolve("3", 10, 0));
+        assertEquals(3, HostCountSpec.resolve(" 3 ", 10, 0));
+        assertEquals(0, HostCountSpec.resolve("0", 10, 5));
+    }
+
+    @Test
+    public void percentageIsRoundedUp() {
+        assertEquals(3, HostCountSpec.resolve("25%", 10, 0));
+        assertEquals(1, HostCountSpec.resolve("1%", 10, 0));
+        assertEquals(10, HostCountSpec.resolve("100%", 10, 0));
+        assertEquals(2, HostCountSpec.resolve("12.5%", 16, 0));
+        assertEquals(0, HostCountSpec.resolve("0%", 10, 5));
+    }
+
+    @Test
+    public void malformedSpecResolvesToDefault() {
+        assertEquals(4, HostCountSpec.resolve("abc", 10, 4));
+        assertEquals(4, HostCountSpec.resolve("%", 10, 4));
+        assertEquals(4, HostCountSpec.resolve("2.5", 10, 4));
+    }
+
+    @Test
+    public void negativeValuesAreClamped() {
+        assertEquals(0, HostCountSpec.resolve("-2", 10, 4));
+        assertEquals(0, HostCountSpec.resolve("-20%", 10, 4));
+    }
+
+    @Test
+    public void validation() {
+        assertTrue(HostCountSpec.isValid(null));
+        assertTrue(HostCountSpec.isValid(""));
+        assertTrue(HostCountSpec.isValid("2"));
+        assertTrue(HostCountSpec.isValid(" 25% "));
+        assertTrue(HostCountSpec.isValid("12.5%"));
+        assertFalse(HostCountSpec.isValid("-2"));
+        assertFalse(HostCountSpec.isValid("2.5"));
+        assertFalse(HostCountSpec.isValid("two"));
+        assertFalse(HostCountSpec.isValid("25 %%"));
+    }
+}
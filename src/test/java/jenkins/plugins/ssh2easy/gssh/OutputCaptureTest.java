@@ -0,0 +1,133 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OutputCaptureTest {
+    private final ByteArrayOutputStream console = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream artifact = new ByteArrayOutputStream();
+
+    private OutputCapture capture(long headBytes, int tailBytes) throws IOException {
+        LoggerDecorator logger = new LoggerDecorator(new PrintStream(console, true, StandardCharsets.UTF_8.name()));
+        return new OutputCapture(logger, artifact, "out.log.gz", headBytes, tailBytes);
+    }
+
+    private static void write(OutputCapture capture, String... chunks) throws IOException {
+        for (String chunk : chunks) {
+            capture.write(chunk.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String console() {
+        return new String(console.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String artifact() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(artifact.toByteArray()))) {
+            byte[] buffer = new byte[1024];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shortOutputIsPrintedWhole() throws Exception {
+        OutputCapture capture = capture(4, 8);
+        write(capture, "abc", "defgh");
+        capture.close();
+        assertEquals("abcdefgh", console());
+        assertEquals("abcdefgh", artifact());
+    }
+
+    @Test
+    public void middleIsOmittedBetweenHeadAndTail() throws Exception {
+        OutputCapture capture = capture(4, 4);
+        write(capture, "abc", "def", "ghi", "jkl");
+        assertEquals("abcd", console());
+        capture.close();
+        String console = console();
+        assertTrue(console, console.startsWith("abcd\n"));
+        assertTrue(console, console.contains("4 of 12 bytes of output omitted, the full output is archived as "
+                + "out.log.gz"));
+        assertTrue(console, console.endsWith("\nijkl"));
+        assertEquals("abcdefghijkl", artifact());
+        assertEquals(12, capture.getWritten());
+    }
+
+    @Test
+    public void tailWrapsAroundTheRingBuffer() throws Exception {
+        OutputCapture capture = capture(0, 5);
+        write(capture, "ab", "cde", "fg", "h");
+        capture.close();
+        String console = console();
+        assertTrue(console, console.contains("3 of 8 bytes of output omitted"));
+        assertTrue(console, console.endsWith("\ndefgh"));
+    }
+
+    @Test
+    public void writeLargerThanTheTailKeepsItsEnd() throws Exception {
+        OutputCapture capture = capture(0, 3);
+        write(capture, "ab", "cdefghij");
+        capture.close();
+        String console = console();
+        assertTrue(console, console.contains("7 of 10 bytes of output omitted"));
+        assertTrue(console, console.endsWith("\nhij"));
+        assertEquals("abcdefghij", artifact());
+    }
+
+    @Test
+    public void writeSpanningTheHeadIsSplit() throws Exception {
+        OutputCapture capture = capture(3, 3);
+        write(capture, "abcdefgh");
+        capture.close();
+        String console = console();
+        assertTrue(console, console.startsWith("abc\n"));
+        assertTrue(console, console.contains("2 of 8 bytes of output omitted"));
+        assertTrue(console, console.endsWith("\nfgh"));
+    }
+
+    @Test
+    public void nothingIsOmittedWhenHeadAndTailMeet() throws Exception {
+        OutputCapture capture = capture(3, 3);
+        write(capture, "abc", "def");
+        capture.close();
+        assertEquals("abcdef", console());
+        assertFalse(console().contains("omitted"));
+    }
+
+    @Test
+    public void commandMessagesKeepTheirPlaceAfterTheOutput() throws Exception {
+        LoggerDecorator logger = new LoggerDecorator(new PrintStream(console, true, StandardCharsets.UTF_8.name()));
+        try (OutputCapture capture = new OutputCapture(logger, artifact, "out.log.gz", 0, 1024)) {
+            LoggerDecorator commandLogger = logger.withOutput(capture);
+            commandLogger.outputStream().write("output\n".getBytes(StandardCharsets.UTF_8));
+            commandLogger.log("Shell exit status code -->0");
+        }
+        assertEquals("output\n[GSSH] Shell exit status code -->0" + System.lineSeparator(), console());
+    }
+
+    @Test
+    public void messagesAfterCloseFollowTheTail() throws Exception {
+        OutputCapture capture = capture(0, 3);
+        write(capture, "abc");
+        capture.close();
+        write(capture, "!");
+        assertEquals("abc!", console());
+        assertEquals("abc", artifact());
+    }
+}
@@ -0,0 +1,39 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import jenkins.plugins.ssh2easy.gssh.client.PipelinedSftpUploader;
+import jenkins.plugins.ssh2easy.gssh.client.ReconnectPolicy;
+import jenkins.plugins.ssh2easy.gssh.client.SshTransport;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ServerGroupTest {
+
+    @Test
+    public void missingConnectRetriesFallBackToDefault() {
+        // What XStream leaves behind for a group saved before the setting existed
+        assertEquals(ReconnectPolicy.DEFAULT_RETRIES, new ServerGroup().getConnectRetries());
+    }
+
+    @Test
+    public void configuredConnectRetriesAreKept() {
+        ServerGroup group = new ServerGroup();
+        group.setConnectRetries(0);
+        assertEquals(0, group.getConnectRetries());
+        group.setConnectRetries(5);
+        assertEquals(5, group.getConnectRetries());
+        group.setConnectRetries(-1);
+        assertEquals(0, group.getConnectRetries());
+    }
+
+    @Test
+    public void settingsNotBoundGetDefaults() {
+        ServerGroup group = new ServerGroup("group", 22, "root", "secret");
+        assertEquals(ServerGroup.DEFAULT_MAX_CHANNELS, group.getMaxChannels());
+        assertEquals(PipelinedSftpUploader.DEFAULT_WINDOW, group.getSftpWindow());
+        assertEquals(CompressionMode.OFF, group.getCompression());
+        assertEquals(ServerGroup.DEFAULT_KEEP_ALIVE_INTERVAL, group.getKeepAliveInterval());
+        assertEquals(ReconnectPolicy.DEFAULT_RETRIES, group.getConnectRetries());
+        assertEquals(SshTransport.DEFAULT_ID, group.getTransport());
+    }
+}
@@ -0,0 +1,65 @@
+package jenkins.plugins.ssh2easy.gssh;
+
+import jenkins.plugins.ssh2easy.gssh.client.TransferVerificationException;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransferRetryTest {
+
+    private static final LoggerDecorator LOGGER = new LoggerDecorator(new PrintStream(new ByteArrayOutputStream()));
+
+    @Test
+    public void resumesAfterFailure() throws Exception {
+        AtomicInteger resumes = new AtomicInteger();
+        int status = new TransferRetry(2).run(LOGGER, () -> {
+            throw new GsshPluginException(new IOException("connection reset"));
+        }, () -> {
+            resumes.incrementAndGet();
+            return 0;
+        });
+        assertEquals(0, status);
+        assertEquals(1, resumes.get());
+    }
+
+    @Test
+    public void interruptsAreNotRetried() {
+        assertFalse(TransferRetry.isRetryable(new GsshPluginException(new InterruptedIOException("aborted"))));
+        assertFalse(TransferRetry.isRetryable(new RuntimeException(new InterruptedException())));
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse(TransferRetry.isRetryable(new IOException("connection reset")));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void verificationFailuresAreNotResumed() throws Exception {
+        AtomicInteger resumes = new AtomicInteger();
+        GsshPluginException failure = new GsshPluginException(new TransferVerificationException("mismatch"));
+        try {
+            new TransferRetry(3).run(LOGGER, () -> {
+                throw failure;
+            }, () -> {
+                resumes.incrementAndGet();
+                return 0;
+            });
+            fail("Verification failure was retried");
+        } catch (GsshPluginException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(0, resumes.get());
+        assertTrue(TransferRetry.isRetryable(new GsshPluginException(new IOException("connection reset"))));
+    }
+}
@@ -0,0 +1,50 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MeteredExecutorTest {
+
+    @Test
+    public void tasksCancelledBeforeStartLeaveTheQueue() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        MeteredExecutor executor = new MeteredExecutor("test", pool, 1, false);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> busy = executor.submit(() -> {
+                started.countDown();
+                release.await();
+                return null;
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<?> waiting = executor.submit(() -> {
+            });
+            assertEquals(1, executor.getRunning());
+            assertEquals(1, executor.getQueued());
+
+            assertTrue(waiting.cancel(true));
+            assertEquals(1, executor.getCancelled());
+            assertEquals(0, executor.getQueued());
+
+            release.countDown();
+            busy.get(10, TimeUnit.SECONDS);
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(1, executor.getCompleted());
+            assertEquals(1, executor.getCancelled());
+            assertEquals(0, executor.getRunning());
+            assertEquals(0, executor.getQueued());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrefetchInputStreamTest {
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void readsSourceToTheEnd() throws Exception {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        try (PrefetchInputStream in = new PrefetchInputStream(new ByteArrayInputStream(data), 7, 2)) {
+            assertArrayEquals(data, readAll(in));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void readsEmptySource() throws Exception {
+        try (PrefetchInputStream in = new PrefetchInputStream(new ByteArrayInputStream(new byte[0]), 7, 2)) {
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void handsFailureOfSourceToConsumer() throws Exception {
+        InputStream source = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() {
+                if (count++ == 10) {
+                    throw new IllegalStateException("broken source");
+                }
+                return 'x';
+            }
+        };
+        try (PrefetchInputStream in = new PrefetchInputStream(source, 4, 2)) {
+            readAll(in);
+            fail("Failure of the source was not passed on");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void closeStopsReadingAhead() throws Exception {
+        CountDownLatch sourceClosed = new CountDownLatch(1);
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 'x';
+            }
+
+            @Override
+            public void close() {
+                sourceClosed.countDown();
+            }
+        };
+        PrefetchInputStream in = new PrefetchInputStream(endless, 4, 1);
+        assertEquals('x', in.read());
+        in.close();
+        assertTrue("source was not closed", sourceClosed.await(10, TimeUnit.SECONDS));
+        assertEquals(-1, in.read());
+    }
+}
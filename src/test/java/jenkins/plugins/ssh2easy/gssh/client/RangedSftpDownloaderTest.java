@@ -0,0 +1,63 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static jenkins.plugins.ssh2easy.gssh.client.RangedSftpDownloader.MIN_RANGE_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangedSftpDownloaderTest {
+
+    private static void assertCovers(long size, List<RangedSftpDownloader.Range> parts) {
+        long expected = 0;
+        for (RangedSftpDownloader.Range range : parts) {
+            assertEquals(expected, range.offset);
+            assertTrue(range.length > 0);
+            expected += range.length;
+        }
+        assertEquals(size, expected);
+    }
+
+    @Test
+    public void emptyFileHasNoRanges() {
+        assertEquals(1, RangedSftpDownloader.rangeCount(0, 8));
+        assertTrue(RangedSftpDownloader.split(0, 8, 10).isEmpty());
+    }
+
+    @Test
+    public void smallFileIsOneRange() {
+        assertEquals(1, RangedSftpDownloader.rangeCount(1, 8));
+        assertEquals(1, RangedSftpDownloader.rangeCount(MIN_RANGE_SIZE - 1, 8));
+        assertEquals(1, RangedSftpDownloader.rangeCount(2 * MIN_RANGE_SIZE - 1, 8));
+        List<RangedSftpDownloader.Range> parts = RangedSftpDownloader.split(MIN_RANGE_SIZE - 1, 8, 10);
+        assertEquals(1, parts.size());
+        assertCovers(MIN_RANGE_SIZE - 1, parts);
+    }
+
+    @Test
+    public void rangesAreNotSmallerThanMinimum() {
+        assertEquals(3, RangedSftpDownloader.rangeCount(3 * MIN_RANGE_SIZE + 5, 8));
+        assertEquals(8, RangedSftpDownloader.rangeCount(100 * MIN_RANGE_SIZE, 8));
+        assertEquals(1, RangedSftpDownloader.rangeCount(100 * MIN_RANGE_SIZE, 0));
+    }
+
+    @Test
+    public void unevenSizeLeavesShorterLastRange() {
+        long size = 4 * MIN_RANGE_SIZE + 3;
+        List<RangedSftpDownloader.Range> parts = RangedSftpDownloader.split(size, 4, 10);
+        assertEquals(4, parts.size());
+        assertCovers(size, parts);
+        assertEquals(MIN_RANGE_SIZE + 1, parts.get(0).length);
+        assertEquals(MIN_RANGE_SIZE, parts.get(3).length);
+    }
+
+    @Test
+    public void rangesAreCappedBySessionCapacity() {
+        long size = 100 * MIN_RANGE_SIZE + 7;
+        List<RangedSftpDownloader.Range> parts = RangedSftpDownloader.split(size, 16, 4);
+        assertEquals(4, parts.size());
+        assertCovers(size, parts);
+    }
+}
@@ -0,0 +1,73 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import com.jcraft.jsch.JSchException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReconnectPolicyTest {
+
+    @Test
+    public void networkErrorsAreTransient() {
+        assertTrue(ReconnectPolicy.isTransient(new IOException("Broken pipe")));
+        assertTrue(ReconnectPolicy.isTransient(new ConnectException("Connection refused")));
+        assertTrue(ReconnectPolicy.isTransient(new SocketTimeoutException("connect timed out")));
+    }
+
+    @Test
+    public void wrappedNetworkErrorsAreTransient() {
+        assertTrue(ReconnectPolicy.isTransient(new JSchException("session is down", new ConnectException())));
+        assertTrue(ReconnectPolicy.isTransient(new RuntimeException(new IOException("Connection reset"))));
+    }
+
+    @Test
+    public void jschConnectionFailuresAreTransient() {
+        assertTrue(ReconnectPolicy.isTransient(new JSchException("timeout: socket is not established")));
+        assertTrue(ReconnectPolicy.isTransient(new JSchException("connection is closed by foreign host")));
+        assertTrue(ReconnectPolicy.isTransient(new JSchException("java.net.ConnectException: Connection refused")));
+        assertTrue(ReconnectPolicy.isTransient(new JSchException("Session.connect: Connection reset")));
+    }
+
+    @Test
+    public void authenticationAndConfigurationErrorsAreNotTransient() {
+        assertFalse(ReconnectPolicy.isTransient(new JSchException("Auth fail")));
+        assertFalse(ReconnectPolicy.isTransient(new JSchException("UnknownHostKey: example.org")));
+        assertFalse(ReconnectPolicy.isTransient(new JSchException(null)));
+        assertFalse(ReconnectPolicy.isTransient(new IllegalArgumentException("port out of range")));
+    }
+
+    @Test
+    public void retriesAreRunUntilSuccess() throws Exception {
+        int[] attempts = new int[1];
+        String connection = new ReconnectPolicy(1).connect(null, "host", () -> {
+            if (attempts[0]++ == 0) {
+                throw new ConnectException("Connection refused");
+            }
+            return "connected";
+        });
+        assertEquals("connected", connection);
+        assertEquals(2, attempts[0]);
+    }
+
+    @Test
+    public void nonTransientErrorsAreNotRetried() {
+        int[] attempts = new int[1];
+        try {
+            new ReconnectPolicy(3).connect(null, "host", () -> {
+                attempts[0]++;
+                throw new JSchException("Auth fail");
+            });
+            fail("The connect should have failed");
+        } catch (Exception e) {
+            assertEquals("Auth fail", e.getMessage());
+        }
+        assertEquals(1, attempts[0]);
+    }
+}
@@ -0,0 +1,39 @@
+package jenkins.plugins.ssh2easy.gssh.client;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SshExecutorsTest {
+
+    private static boolean hasVirtualThreads() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void virtualThreadExecutorMatchesTheJvm() throws Exception {
+        ExecutorService executor = SshExecutors.newVirtualThreadExecutor("ssh2easy test");
+        if (!hasVirtualThreads()) {
+            assertNull(executor);
+            return;
+        }
+        assertNotNull(executor);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get();
+            assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(thread));
+            assertTrue(thread.getName(), thread.getName().startsWith("ssh2easy test "));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}